@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.collision.BroadphaseType;
+import de.codesourcery.jinvaders.graphics.NullRenderer;
+
+/**
+ * Measures a full simulation tick (without rendering).
+ *
+ * Bullets leave the screen and invaders get destroyed as the game advances, so every {@value #TICKS_PER_RESTORE} ticks
+ * the scenario is restored (by resetting the game, which re-uses the session seed). This way the entity counts stay close
+ * to what the parameters say for all measured ticks.
+ *
+ * Restoring happens inside the measured code (JMH's per-invocation setup is too imprecise for invocations this
+ * short), {@link #restoreScenario()} measures the restore alone. Both results are per tick, so subtracting the
+ * latter from {@link #advanceGameState()} yields the cost of a tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AdvanceGameStateBenchmark
+{
+	// bullets move 4 pixels per tick, so only a few of them leave the screen before the scenario gets restored
+	public static final int TICKS_PER_RESTORE = 10;
+
+	@Param({"40","120","240"})
+	public int invaderCount;
+
+	@Param({"0","200"})
+	public int bulletCount;
+
+	@Param({"BRUTE_FORCE","UNIFORM_GRID","SWEEP_AND_PRUNE"})
+	public BroadphaseType broadphaseType;
+
+	private Game game;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		game = Scenarios.newGame( new NullRenderer() );
+		game.setBroadphase( broadphaseType.create() );
+	}
+
+	private void restore()
+	{
+		game.reset(); // same seed as before
+		Scenarios.makePlayerInvulnerable( game );
+		Scenarios.replaceInvaders( game , invaderCount );
+		Scenarios.addPlayerBullets( game , bulletCount );
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TICKS_PER_RESTORE)
+	public Game advanceGameState()
+	{
+		restore();
+		for ( int i = 0 ; i < TICKS_PER_RESTORE ; i++ ) {
+			game.advanceGameState();
+		}
+		return game;
+	}
+
+	/**
+	 * Baseline for {@link #advanceGameState()}.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(TICKS_PER_RESTORE)
+	public Game restoreScenario()
+	{
+		restore();
+		return game;
+	}
+}
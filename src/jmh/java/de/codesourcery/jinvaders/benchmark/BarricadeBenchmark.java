@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.entity.Barricade;
+import de.codesourcery.jinvaders.entity.Bullet;
+import de.codesourcery.jinvaders.graphics.NullRenderer;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+/**
+ * Measures checking bullets against barricades.
+ *
+ * {@link #checkAllBullets()} mirrors what the game does every tick (most bullets miss),
+ * {@link #erode()} measures bullets actually destroying barricade pixels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BarricadeBenchmark
+{
+	@Param({"10","100","1000"})
+	public int bulletCount;
+
+	private Game game;
+	private List<Bullet> bullets;
+
+	// state for erode() benchmark
+	private Sprite barricadeSprite;
+	private Barricade freshBarricade;
+	private final List<Bullet> erodingBullets = new ArrayList<>();
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		game = Scenarios.newGame( new NullRenderer() );
+		bullets = Scenarios.addPlayerBullets( game , bulletCount );
+
+		barricadeSprite = game.spriteRepository.getSprite( SpriteImpl.BARRICADE );
+		final Barricade barricade = game.barricades.get(0);
+		final Sprite bulletSprite = game.spriteRepository.getSprite( SpriteImpl.PLAYER_BULLET );
+		for ( int i = 0 ; i < bulletCount ; i++ )
+		{
+			final int x = barricade.left() + ( i * 3 ) % barricade.getWidth();
+			final Vec2d position = new Vec2d( x , barricade.bottom() - bulletSprite.size().height()/2 );
+			erodingBullets.add( new Bullet( position , new Vec2d( 0 , -Constants.PLAYER_BULLET_VELOCITY ) , game.player , bulletSprite ) );
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setupBarricade() {
+		freshBarricade = new Barricade( new Vec2d( game.barricades.get(0).getX() , game.barricades.get(0).getY() ) , barricadeSprite );
+	}
+
+	@Benchmark
+	public int checkAllBullets()
+	{
+		int hits = 0;
+		for ( int i = 0 , len = bullets.size() ; i < len ; i++ )
+		{
+			final Bullet bullet = bullets.get(i);
+			for ( final Barricade barricade : game.barricades )
+			{
+				if ( barricade.hitBy( bullet ) ) {
+					hits++;
+					break;
+				}
+			}
+		}
+		return hits;
+	}
+
+	@Benchmark
+	public int erode()
+	{
+		int hits = 0;
+		for ( int i = 0 , len = erodingBullets.size() ; i < len ; i++ )
+		{
+			if ( freshBarricade.hitBy( erodingBullets.get(i) ) ) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+}
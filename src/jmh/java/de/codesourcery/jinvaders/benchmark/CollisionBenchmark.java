@@ -0,0 +1,79 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.collision.BroadphaseType;
+import de.codesourcery.jinvaders.collision.IBroadphase;
+import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.graphics.NullRenderer;
+
+/**
+ * Measures finding all colliding entities using the different collision detection strategies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CollisionBenchmark
+{
+	@Param({"40","120","240"})
+	public int invaderCount;
+
+	@Param({"10","200","1000"})
+	public int bulletCount;
+
+	@Param({"BRUTE_FORCE","UNIFORM_GRID","SWEEP_AND_PRUNE"})
+	public BroadphaseType broadphaseType;
+
+	private List<Entity> entities;
+	private IBroadphase broadphase;
+	private final List<Entity> result = new ArrayList<>();
+
+	@Setup
+	public void setup()
+	{
+		final Game game = Scenarios.newGame( new NullRenderer() );
+		Scenarios.replaceInvaders( game , invaderCount );
+		Scenarios.addPlayerBullets( game , bulletCount );
+		entities = game.entities.asList();
+		broadphase = broadphaseType.create();
+	}
+
+	@Benchmark
+	public int findColliding()
+	{
+		result.clear();
+		broadphase.findColliding( entities , result );
+		return result.size();
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jinvaders.particles.ParticlePool;
+import de.codesourcery.jinvaders.particles.ParticlePool.Subpool;
+
+/**
+ * Measures allocating and releasing particles from a fragmented pool.
+ *
+ * The pool gets fragmented by allocating lots of differently-sized chunks and
+ * then releasing every other one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParticlePoolBenchmark
+{
+	@Param({"10","100","1000"})
+	public int fragmentCount;
+
+	@Param({"100"})
+	public int particleCount;
+
+	private ParticlePool pool;
+
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		pool = new ParticlePool( 0 );
+		final SplittableRandom rnd = new SplittableRandom( Scenarios.SEED );
+		final List<List<Subpool>> allocated = new ArrayList<>();
+		for ( int i = 0 ; i < fragmentCount*2 ; i++ ) {
+			allocated.add( pool.allocateParticles( 50 + rnd.nextInt( 100 ) ) );
+		}
+		for ( int i = 0 ; i < allocated.size() ; i += 2 ) {
+			pool.releaseParticles( allocated.get(i) );
+		}
+	}
+
+	@Benchmark
+	public List<Subpool> allocateAndRelease()
+	{
+		final List<Subpool> result = pool.allocateParticles( particleCount );
+		pool.releaseParticles( result );
+		return result;
+	}
+}
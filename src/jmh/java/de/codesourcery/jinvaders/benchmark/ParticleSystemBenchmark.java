@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jinvaders.entity.ParticleSystem;
+import de.codesourcery.jinvaders.entity.ParticleSystem.ParticleEffect;
+import de.codesourcery.jinvaders.graphics.AWTRenderer;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+import de.codesourcery.jinvaders.particles.IParticleKernel;
+import de.codesourcery.jinvaders.particles.ParticleKernels;
+import de.codesourcery.jinvaders.particles.ParticlePool;
+import de.codesourcery.jinvaders.particles.ParticleSimulator;
+import de.codesourcery.jinvaders.particles.ScalarParticleKernel;
+
+/**
+ * Measures animating and rendering explosions.
+ *
+ * Particles never expire so that the number of live particles
+ * stays constant during an iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParticleSystemBenchmark
+{
+	@Param({"1","10","40","100"})
+	public int effectCount;
+
+	@Param({"100"})
+	public int particlesPerEffect;
+
+	// min. number of particles before they're moved in parallel (0 = always, 2147483647 = never)
+	@Param({"0","2147483647"})
+	public int parallelThreshold;
+
+	// the vector kernel requires the JVM to be started with --add-modules jdk.incubator.vector
+	@Param({"scalar","vector"})
+	public String kernel;
+
+	private final StubTickContext context = new StubTickContext();
+	private final List<ParticleSystem> systems = new ArrayList<>();
+
+	private AWTRenderer renderer;
+	private ParticlePool pool;
+	private ParticleSimulator simulator;
+
+	@Setup(Level.Trial)
+	public void setupRenderer()
+	{
+		renderer = new AWTRenderer();
+		renderer.initialize( null );
+	}
+
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		pool = new ParticlePool( 1000 , particlesPerEffect );
+		simulator = new ParticleSimulator( pool , createKernel() , parallelThreshold , ForkJoinPool.commonPool() );
+		final SplittableRandom rnd = new SplittableRandom( Scenarios.SEED );
+		for ( int i = 0 ; i < effectCount ; i++ )
+		{
+			final Vec2d position = new Vec2d( 100 + ( i * 37 ) % 600 , 150 + ( i * 53 ) % 300 );
+			systems.add( new ParticleSystem( pool , new ParticleEffect( position , particlesPerEffect , Float.MAX_VALUE , rnd ) ) );
+		}
+	}
+
+	private IParticleKernel createKernel()
+	{
+		if ( "scalar".equals( kernel ) ) {
+			return new ScalarParticleKernel();
+		}
+		final IParticleKernel result = ParticleKernels.createVectorKernel();
+		if ( result == null ) {
+			throw new IllegalStateException("Vector API kernel not available, build and run on JDK 17+ with --add-modules jdk.incubator.vector");
+		}
+		return result;
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown()
+	{
+		systems.forEach( ParticleSystem::onDispose );
+		systems.clear();
+	}
+
+	@Benchmark
+	public void tick()
+	{
+		for ( int i = 0 , len = systems.size() ; i < len ; i++ ) {
+			systems.get(i).tick( context );
+		}
+		simulator.tick( context.getElapsedTimeInSeconds() );
+	}
+
+	@Benchmark
+	public void render()
+	{
+		renderer.begin();
+		for ( int i = 0 , len = systems.size() ; i < len ; i++ ) {
+			systems.get(i).render( renderer , 0 );
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.entity.Bullet;
+import de.codesourcery.jinvaders.entity.InvaderFormation;
+import de.codesourcery.jinvaders.graphics.IRenderer;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+import de.codesourcery.jinvaders.sound.NullSoundSystem;
+
+/**
+ * Helper methods to setup reproducible benchmark scenarios.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+final class Scenarios
+{
+	public static final long SEED = 0xdeadbeefL;
+
+	// shared by all scenarios, loading sprites is expensive
+	public static final SpriteRepository SPRITES = new SpriteRepository();
+
+	private Scenarios() {
+	}
+
+	/**
+	 * Create a new game in PLAYING state.
+	 *
+	 * @param renderer
+	 * @return
+	 */
+	public static Game newGame(IRenderer renderer)
+	{
+		final Game game = new Game( renderer , new NullSoundSystem() , SPRITES , SEED );
+		game.startGame( SEED );
+		return game;
+	}
+
+	/**
+	 * Make sure the game never ends because the player ran out of lives.
+	 *
+	 * @param game
+	 */
+	public static void makePlayerInvulnerable(Game game) {
+		game.player.lifes = 1_000_000;
+	}
+
+	/**
+	 * Replace the regular invader formation with a (denser) one of the given size.
+	 *
+	 * Invaders never overlap (they would collide with each other otherwise), so only
+	 * about 240 invaders fit into the upper part of the screen.
+	 *
+	 * @param game
+	 * @param count
+	 */
+	public static void replaceInvaders(Game game,int count)
+	{
+		final Sprite sprite = game.spriteRepository.getSprite( SpriteImpl.INVADER );
+		final int xSpacing = sprite.size().width() + 2;
+		final int ySpacing = sprite.size().height() + 2;
+		final int perRow = ( Constants.VIEWPORT.width - xSpacing ) / xSpacing;
+		final int rows = ( count + perRow - 1 ) / perRow;
+
+		// stay well above the player
+		final int maxHeight = (int) ( Constants.VIEWPORT.height * 0.85f ) - sprite.size().height();
+		if ( rows * ySpacing > maxHeight ) {
+			throw new IllegalArgumentException("Too many invaders: "+count);
+		}
+
+		final int xStart = Constants.VIEWPORT.x + xSpacing/2;
+		final int yStart = Constants.VIEWPORT.y + sprite.size().height();
+		final InvaderFormation formation = new InvaderFormation( perRow , rows , Constants.INITIAL_INVADER_VELOCITY_X );
+		for ( int i = 0 ; i < count ; i++ )
+		{
+			final int column = i % perRow;
+			final int row = i / perRow;
+			formation.spawn( new Vec2d( xStart + column * xSpacing , yStart + row * ySpacing ) , sprite , column , row );
+		}
+		game.setInvaderFormation( formation );
+	}
+
+	/**
+	 * Add player bullets, evenly spread across the screen.
+	 *
+	 * @param game
+	 * @param count
+	 * @return
+	 */
+	public static List<Bullet> addPlayerBullets(Game game,int count)
+	{
+		final Sprite sprite = game.spriteRepository.getSprite( SpriteImpl.PLAYER_BULLET );
+		final List<Bullet> result = new ArrayList<>();
+		for ( int i = 0 ; i < count ; i++ )
+		{
+			final int x = Constants.VIEWPORT.x + (int) ( ( i * 7919L ) % Constants.VIEWPORT.width );
+			final int y = Constants.VIEWPORT.y + (int) ( ( i * 104729L ) % Constants.VIEWPORT.height );
+			final Bullet bullet = new Bullet( new Vec2d( x , y ) , new Vec2d( 0 , -Constants.PLAYER_BULLET_VELOCITY ) , game.player , sprite );
+			game.entities.add( bullet );
+			result.add( bullet );
+		}
+		return result;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.ITickListener;
+import de.codesourcery.jinvaders.entity.BulletPool;
+import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.entity.ITickContext;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteKey;
+import de.codesourcery.jinvaders.sound.SoundEffect;
+
+/**
+ * Minimal tick context for benchmarking entities outside of a game.
+ */
+final class StubTickContext extends ITickContext
+{
+	private final List<Entity> entities = new ArrayList<>();
+	private final SplittableRandom random = new SplittableRandom( Scenarios.SEED );
+	private final BulletPool bulletPool = new BulletPool();
+
+	@Override
+	public float getElapsedTimeInSeconds() {
+		return 1f / Constants.TICKS_PER_SECOND;
+	}
+
+	@Override
+	public void addTickListener(ITickListener listener) {
+	}
+
+	@Override
+	public void removeTickListener(ITickListener listener) {
+	}
+
+	@Override
+	public List<Entity> getNonStaticEntities() {
+		return entities;
+	}
+
+	@Override
+	public void addNewEntity(Entity e) {
+		entities.add( e );
+	}
+
+	@Override
+	public void destroyEntity(Entity e) {
+		entities.remove( e );
+	}
+
+	@Override
+	public BulletPool getBulletPool() {
+		return bulletPool;
+	}
+
+	@Override
+	public int getCurrentTick() {
+		return 0;
+	}
+
+	@Override
+	public Sprite getSprite(SpriteKey sprite) {
+		return Scenarios.SPRITES.getSprite( sprite );
+	}
+
+	@Override
+	public void playSound(SoundEffect effect) {
+	}
+
+	@Override
+	public SplittableRandom getRandom() {
+		return random;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders;
+
+import java.util.Arrays;
+
+import de.codesourcery.jinvaders.entity.Entity;
+
+/**
+ * Queues structural changes (adding/removing entities and tick listeners) so that
+ * they can be applied in bulk at well-defined points in time instead of while
+ * entities or listeners are being iterated over.
+ *
+ * Commands are applied in the order they were queued, commands queued
+ * while the buffer is being flushed get applied by the same {@link #flush(ICommandTarget)} call.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class CommandBuffer
+{
+	private static final byte ADD_ENTITY = 0;
+	private static final byte DESTROY_ENTITY = 1;
+	private static final byte ADD_TICK_LISTENER = 2;
+	private static final byte REMOVE_TICK_LISTENER = 3;
+
+	/**
+	 * Receives the commands when the buffer gets flushed.
+	 */
+	public interface ICommandTarget
+	{
+		public void addEntity(Entity entity);
+
+		public void destroyEntity(Entity entity);
+
+		public void addTickListener(ITickListener listener);
+
+		public void removeTickListener(ITickListener listener);
+	}
+
+	private byte[] commands;
+	private Object[] arguments;
+	private int size;
+
+	public CommandBuffer() {
+		this(32);
+	}
+
+	public CommandBuffer(int initialCapacity)
+	{
+		if ( initialCapacity < 1 ) {
+			throw new IllegalArgumentException("Initial capacity must be >= 1");
+		}
+		commands = new byte[ initialCapacity ];
+		arguments = new Object[ initialCapacity ];
+	}
+
+	public void addEntity(Entity entity) {
+		add( ADD_ENTITY , entity );
+	}
+
+	public void destroyEntity(Entity entity) {
+		add( DESTROY_ENTITY , entity );
+	}
+
+	public void addTickListener(ITickListener listener) {
+		add( ADD_TICK_LISTENER , listener );
+	}
+
+	public void removeTickListener(ITickListener listener) {
+		add( REMOVE_TICK_LISTENER , listener );
+	}
+
+	private void add(byte command,Object argument)
+	{
+		if ( argument == null ) {
+			throw new IllegalArgumentException("argument must not be NULL");
+		}
+		if ( size == commands.length )
+		{
+			commands = Arrays.copyOf( commands , size*2 );
+			arguments = Arrays.copyOf( arguments , size*2 );
+		}
+		commands[size] = command;
+		arguments[size] = argument;
+		size++;
+	}
+
+	/**
+	 * Apply all queued commands and empty the buffer.
+	 *
+	 * @param target
+	 */
+	public void flush(ICommandTarget target)
+	{
+		// commands may get queued while flushing, so re-check the size on every iteration
+		for ( int i = 0 ; i < size ; i++ )
+		{
+			final Object argument = arguments[i];
+			arguments[i] = null;
+			switch( commands[i] )
+			{
+				case ADD_ENTITY:
+					target.addEntity( (Entity) argument );
+					break;
+				case DESTROY_ENTITY:
+					target.destroyEntity( (Entity) argument );
+					break;
+				case ADD_TICK_LISTENER:
+					target.addTickListener( (ITickListener) argument );
+					break;
+				case REMOVE_TICK_LISTENER:
+					target.removeTickListener( (ITickListener) argument );
+					break;
+				default:
+					throw new IllegalStateException("Unhandled command: "+commands[i]);
+			}
+		}
+		size = 0;
+	}
+
+	/**
+	 * Discard all queued commands.
+	 */
+	public void clear()
+	{
+		Arrays.fill( arguments , 0 , size , null );
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
@@ -19,8 +19,12 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 
-import de.codesourcery.jinvaders.graphics.Vec2d;
-
+/**
+ * Game constants.
+ *
+ * Note that these are shared by all game instances running inside the same JVM
+ * so none of the mutable objects (dimensions,rectangles,...) must ever be modified.
+ */
 public class Constants {
 
 	// total size of screen
@@ -39,7 +43,8 @@ public class Constants {
 	public static final Color BACKGROUND_COLOR = Color.BLACK;
 
 	// entity velocities
-	public static final Vec2d INITIAL_INVADER_VELOCITY = new Vec2d(2,1);
+	public static final int INITIAL_INVADER_VELOCITY_X = 2;
+	public static final int INITIAL_INVADER_VELOCITY_Y = 1;
 	public static final int INVADER_BULLET_VELOCITY = 4;
 	public static final int PLAYER_VELOCITY = 3;
 	public static final int PLAYER_BULLET_VELOCITY = 4;
@@ -51,9 +56,19 @@ public class Constants {
 
 	public static final int MAX_PLAYER_BULLETS_IN_FLIGHT = 2;
 
-	// FPS target
+	// simulation rate (the game state is always advanced in fixed steps of 1/TICKS_PER_SECOND)
 	public static final int TICKS_PER_SECOND = 60;
 
+	// FPS target
+	public static final int FRAMES_PER_SECOND = 60;
+
+	// max. number of simulation ticks the game loop will run to catch up
+	// before rendering the next frame
+	public static final int MAX_TICKS_PER_FRAME = 5;
+
+	// size of cells (in pixels) used by the collision detection grid
+	public static final int COLLISION_GRID_CELL_SIZE = 64;
+
 	// time (in ticks) after which we're going to automatically bump the difficulty
 	// if the player fails to destroy all invaders on the current level
 	public static final int DIFFICULITY_INCREASE_AFTER_TICKS = 90 * TICKS_PER_SECOND;
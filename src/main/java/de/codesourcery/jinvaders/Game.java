@@ -15,23 +15,26 @@
  */
 package de.codesourcery.jinvaders;
 
-import java.awt.Graphics;
+import java.awt.event.KeyEvent;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.SplittableRandom;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import javax.swing.JPanel;
+import jdk.jfr.EventType;
 
+import de.codesourcery.jinvaders.collision.BroadphaseType;
+import de.codesourcery.jinvaders.collision.IBroadphase;
 import de.codesourcery.jinvaders.entity.Barricade;
 import de.codesourcery.jinvaders.entity.Bullet;
+import de.codesourcery.jinvaders.entity.BulletPool;
 import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.entity.EntityStore;
+import de.codesourcery.jinvaders.entity.EntityType;
 import de.codesourcery.jinvaders.entity.ITickContext;
-import de.codesourcery.jinvaders.entity.Invader;
-import de.codesourcery.jinvaders.entity.ParticleSystem;
-import de.codesourcery.jinvaders.entity.ParticleSystem.ParticleEffect;
+import de.codesourcery.jinvaders.entity.InvaderFormation;
+import de.codesourcery.jinvaders.entity.ParticleSystemPool;
 import de.codesourcery.jinvaders.entity.Player;
 import de.codesourcery.jinvaders.graphics.IRenderer;
 import de.codesourcery.jinvaders.graphics.Sprite;
@@ -40,27 +43,66 @@ import de.codesourcery.jinvaders.graphics.SpriteKey;
 import de.codesourcery.jinvaders.graphics.SpriteRepository;
 import de.codesourcery.jinvaders.graphics.UITheme;
 import de.codesourcery.jinvaders.graphics.Vec2d;
+import de.codesourcery.jinvaders.jfr.TickEvent;
+import de.codesourcery.jinvaders.particles.IParticleKernel;
+import de.codesourcery.jinvaders.particles.ParticleGovernor;
+import de.codesourcery.jinvaders.particles.ParticleKernels;
 import de.codesourcery.jinvaders.particles.ParticlePool;
+import de.codesourcery.jinvaders.particles.ParticleSimulator;
+import de.codesourcery.jinvaders.profiling.Phase;
+import de.codesourcery.jinvaders.profiling.TickProfiler;
+import de.codesourcery.jinvaders.sound.ISoundSystem;
 import de.codesourcery.jinvaders.sound.SoundEffect;
+import de.codesourcery.jinvaders.util.IPlayerInput;
 import de.codesourcery.jinvaders.util.KeyboardInput;
 
-public final class Game extends JPanel
+public final class Game
 {
-	public final SpriteRepository spriteRepository = new SpriteRepository();
+	private static final EventType TICK_EVENT_TYPE = EventType.getEventType( TickEvent.class );
+
+	public final SpriteRepository spriteRepository;
 
 	public final List<HighscoreEntry> highscores = new ArrayList<>();
 
 	protected GameStateImpl gameState = GameState.SHOW_HIGHSCORES.newInstance();
 
-	protected final Vec2d currentInvaderVelocity = new Vec2d(Constants.INITIAL_INVADER_VELOCITY);
+	protected final Vec2d currentInvaderVelocity = new Vec2d(Constants.INITIAL_INVADER_VELOCITY_X,Constants.INITIAL_INVADER_VELOCITY_Y);
+
+	// generates the seeds for new game sessions, game instances must not share any mutable state
+	// so every game owns its own random number generators
+	private final SplittableRandom seedGenerator;
+
+	// source of random number generators for things that are purely cosmetic and
+	// may be created at any time (like the star field), split off the seed generator
+	// up-front so creating them never changes the sequence of session seeds
+	private final SplittableRandom cosmeticRandom;
+
+	// seed the current game session was started with
+	protected long sessionSeed;
+
+	// source of randomness for everything that affects gameplay,
+	// re-seeded at the start of each game session so sessions can be replayed
+	protected SplittableRandom random;
+
+	// separate stream for purely visual effects so that
+	// tweaking them never changes the gameplay stream
+	protected SplittableRandom effectsRandom;
+
+	// input bits for the current tick (see IPlayerInput)
+	protected int currentInput;
 
 	public Player player;
 
 	// FIXME: Change to use seconds instead of ticks
 	public int ticksTillDifficultyIncrease=Constants.DIFFICULITY_INCREASE_AFTER_TICKS;
 
-	// list holding all non-static (moving) game entities
-	public final List<Entity> nonStaticEntities = new ArrayList<>();
+	// holds all non-static (moving) game entities
+	public final EntityStore entities = new EntityStore();
+
+	// purely visual effects (explosions), kept apart from the other entities because the number of effects
+	// depends on how fast this machine is (see ParticleGovernor) and removing them must not change the order
+	// the other entities get ticked in (or the game would no longer be deterministic)
+	public final EntityStore effects = new EntityStore();
 
 	// list holding all ITickListener that are NOT entities
 	protected final List<ITickListener> pureTickListeners = new ArrayList<>();
@@ -69,13 +111,25 @@ public final class Game extends JPanel
 
 	protected final KeyboardInput keyboardInput = new KeyboardInput();
 
+	protected IPlayerInput playerInput = keyboardInput;
+
 	// number of invaders that are still alive
 	protected int invadersRemaining;
 
+	// the current wave of invaders
+	protected InvaderFormation invaderFormation;
+
+	// number of entities that collided during the last call to advanceGameState()
+	protected int collidingEntityCount;
+
 	// the current tick
 	protected int currentTick;
 	protected float elapsedTimeInSeconds;
 
+	// fraction of a simulation tick that elapsed since the last tick,
+	// used to interpolate entity positions while rendering
+	protected float interpolationAlpha;
+
 	// the current difficulty level
 	public int difficulty = 1;
 
@@ -83,18 +137,65 @@ public final class Game extends JPanel
 	// before DIFFICULITY_INCREASE_AFTER_TICKS have elapsed
 	protected boolean eligibleForBonus;
 
-	// background buffer that we're going to render to
-	// flag used to synchronize rendering thread (Swing EDT) with game loop execution
-	// game loop will only advance after the current frame has been rendered
-	public final AtomicBoolean screenRendered = new AtomicBoolean(false);
-
 	private final Object RENDERER_LOCK = new Object();
 	private boolean rendererInitialized;
 	public final IRenderer renderer;
 
 	private final UITheme uiTheme;
 
-	private final ParticlePool particlePool = new ParticlePool(1000);
+	private final ISoundSystem soundSystem;
+
+	// number of particles spawned when an invader explodes
+	private static final int PARTICLES_PER_EXPLOSION = 100;
+
+	// slabs small enough that explosions scaled down by the particle governor do not waste simulation time
+	private final ParticlePool particlePool = new ParticlePool( 10 * PARTICLES_PER_EXPLOSION , ParticleGovernor.MIN_PARTICLES_PER_EFFECT );
+
+	private final BulletPool bulletPool = new BulletPool();
+
+	private ParticleSimulator particleSimulator = new ParticleSimulator( particlePool );
+
+	private final ParticleSystemPool particleSystemPool = new ParticleSystemPool( particlePool , PARTICLES_PER_EXPLOSION , 0.6f );
+
+	// scales down explosions when ticking/rendering gets close to the frame budget
+	private final ParticleGovernor particleGovernor = new ParticleGovernor( 1_000_000_000L / Constants.FRAMES_PER_SECOND , 50 * PARTICLES_PER_EXPLOSION );
+
+	// structural changes requested through the tick context, applied at the sync points in advanceGameState()
+	private final CommandBuffer commands = new CommandBuffer();
+
+	private final CommandBuffer.ICommandTarget commandTarget = new CommandBuffer.ICommandTarget()
+	{
+		@Override
+		public void addEntity(Entity entity) {
+			entities.add( entity );
+		}
+
+		@Override
+		public void destroyEntity(Entity entity) {
+			removeEntity( entity );
+		}
+
+		@Override
+		public void addTickListener(ITickListener listener) {
+			pureTickListeners.add( listener );
+		}
+
+		@Override
+		public void removeTickListener(ITickListener listener) {
+			pureTickListeners.remove( listener );
+		}
+	};
+
+	// scratch buffers re-used by advanceGameState() so advancing the game does not allocate
+	private final List<Entity> collidingEntities = new ArrayList<>();
+	private final List<Entity> entitiesToRemove = new ArrayList<>();
+
+	private final TickProfiler profiler = new TickProfiler();
+
+	private IBroadphase broadphase = BroadphaseType.fromSystemProperties().create();
+
+	// whether UITheme#renderHud() should render the profiler overlay
+	private boolean profilerOverlayVisible;
 
 	protected final ITickContext tickContext = new ITickContext()
 	{
@@ -104,7 +205,7 @@ public final class Game extends JPanel
 			if ( listener == null || listener instanceof Entity) { // entities registered through addNewEntity() get their tick() method called anyway so no need to register twice
 				throw new IllegalArgumentException("Unsupported tick listener: "+listener);
 			}
-			pureTickListeners.add( listener );
+			commands.addTickListener( listener );
 		}
 
 		@Override
@@ -112,12 +213,12 @@ public final class Game extends JPanel
 			if ( listener == null ) {
 				throw new IllegalArgumentException("listener must not be NULL");
 			}
-			pureTickListeners.remove( listener );
+			commands.removeTickListener( listener );
 		}
 
 		@Override
 		public List<Entity> getNonStaticEntities() {
-			return nonStaticEntities;
+			return entities.asList();
 		}
 
 		@Override
@@ -127,12 +228,17 @@ public final class Game extends JPanel
 
 		@Override
 		public void destroyEntity(Entity e) {
-			removeEntity( e );
+			commands.destroyEntity( e );
 		}
 
 		@Override
 		public void addNewEntity(Entity e) {
-			nonStaticEntities.add( e );
+			commands.addEntity( e );
+		}
+
+		@Override
+		public BulletPool getBulletPool() {
+			return bulletPool;
 		}
 
 		@Override
@@ -144,22 +250,54 @@ public final class Game extends JPanel
 		public float getElapsedTimeInSeconds() {
 			return elapsedTimeInSeconds;
 		}
+
+		@Override
+		public void playSound(SoundEffect effect) {
+			soundSystem.play( effect );
+		}
+
+		@Override
+		public SplittableRandom getRandom() {
+			return random;
+		}
 	};
 
-	public Game(IRenderer renderer)
+	public Game(IRenderer renderer,ISoundSystem soundSystem)
+	{
+		this( renderer , soundSystem , new SpriteRepository() , System.nanoTime() );
+	}
+
+	/**
+	 *
+	 * @param renderer
+	 * @param soundSystem
+	 * @param spriteRepository sprites to use, may be shared between multiple game instances since sprites are never modified
+	 * @param seed seed used to derive all random numbers used by this game
+	 */
+	public Game(IRenderer renderer,ISoundSystem soundSystem,SpriteRepository spriteRepository,long seed)
 	{
+		if ( renderer == null ) {
+			throw new IllegalArgumentException("renderer must not be NULL");
+		}
+		if ( soundSystem == null ) {
+			throw new IllegalArgumentException("soundSystem must not be NULL");
+		}
+		if ( spriteRepository == null ) {
+			throw new IllegalArgumentException("spriteRepository must not be NULL");
+		}
+		this.spriteRepository = spriteRepository;
+		this.seedGenerator = new SplittableRandom( seed );
+		this.cosmeticRandom = seedGenerator.split();
+		this.sessionSeed = seedGenerator.nextLong();
 		this.renderer = renderer;
+		this.soundSystem = soundSystem;
 		this.uiTheme = new UITheme();
 
-		setPreferredSize(Constants.SCREEN_SIZE);
-		setSize(Constants.SCREEN_SIZE );
-
-		// we're rendering to a background buffer anyway , disable double buffering
-		setDoubleBuffered(false);
-
 		reset();
+	}
 
-		addKeyListener(keyboardInput);
+	public UITheme getUITheme() {
+		return uiTheme;
 	}
 
 	public List<HighscoreEntry> getHighscores() {
@@ -171,9 +309,82 @@ public final class Game extends JPanel
 	}
 
 	public void startGame() {
+		startGame( seedGenerator.nextLong() );
+	}
+
+	/**
+	 * Start a new game session.
+	 *
+	 * @param seed seed for the session's random number generator, starting two sessions with
+	 * the same seed and feeding them the same player input will yield exactly the same game
+	 */
+	public void startGame(long seed) {
+		this.sessionSeed = seed;
 		setGameState( GameState.PLAYING );
 	}
 
+	/**
+	 * Returns the seed the current game session was started with.
+	 *
+	 * @return
+	 * @see #startGame(long)
+	 */
+	public long getSessionSeed() {
+		return sessionSeed;
+	}
+
+	/**
+	 * Returns a new, independent random number generator derived from this game's seed,
+	 * to be used for purely cosmetic things only.
+	 *
+	 * Calling this method does not affect the seeds of future game sessions.
+	 *
+	 * @return
+	 */
+	public SplittableRandom splitRandom() {
+		return cosmeticRandom.split();
+	}
+
+	/**
+	 * Set the source of player input (keyboard by default).
+	 *
+	 * @param input
+	 */
+	public void setPlayerInput(IPlayerInput input)
+	{
+		if ( input == null ) {
+			throw new IllegalArgumentException("input must not be NULL");
+		}
+		this.playerInput = input;
+	}
+
+	public IPlayerInput getPlayerInput() {
+		return playerInput;
+	}
+
+	/**
+	 * Set the kernel used to move particles (by default the fastest one available, see {@link ParticleKernels#create()}).
+	 *
+	 * @param kernel
+	 */
+	public void setParticleKernel(IParticleKernel kernel)
+	{
+		if ( kernel == null ) {
+			throw new IllegalArgumentException("kernel must not be NULL");
+		}
+		this.particleSimulator = new ParticleSimulator( particlePool , kernel );
+	}
+
+	/**
+	 * Poll the player input for the current tick.
+	 *
+	 * @return bit mask of <code>IPlayerInput</code> flags
+	 */
+	public int pollPlayerInput() {
+		currentInput = playerInput.poll();
+		return currentInput;
+	}
+
 	public void setGameState(GameState newState)
 	{
 		this.gameState.state.assertTransitionValid( newState );
@@ -197,11 +408,15 @@ public final class Game extends JPanel
 
 	public void reset()
 	{
+		random = new SplittableRandom( sessionSeed );
+		effectsRandom = random.split();
+		playerInput.sessionStarted( sessionSeed );
+
 		eligibleForBonus = true;
 
 		currentTick = 0;
 
-		currentInvaderVelocity.set(Constants.INITIAL_INVADER_VELOCITY);
+		currentInvaderVelocity.set(Constants.INITIAL_INVADER_VELOCITY_X,Constants.INITIAL_INVADER_VELOCITY_Y);
 
 		ticksTillDifficultyIncrease=Constants.DIFFICULITY_INCREASE_AFTER_TICKS;
 		difficulty = 1;
@@ -212,21 +427,40 @@ public final class Game extends JPanel
 		final int playerY = Constants.VIEWPORT.y + Constants.VIEWPORT.height - playerSprite.size().height();
 		player = new Player( new Vec2d( playerX , playerY ) , playerSprite );
 
+		commands.clear();
 		pureTickListeners.clear();
 		pureTickListeners.add( uiTheme );
 
-		nonStaticEntities.forEach( Entity::onDispose );
-		nonStaticEntities.clear();
-		nonStaticEntities.add( player );
+		entities.asList().forEach( Entity::onDispose );
+		entities.clear();
+		entities.add( player );
+
+		effects.asList().forEach( Entity::onDispose );
+		effects.clear();
+		particleGovernor.reset();
 
 		spawnInvaders();
 		spawnBarricades();
 	}
 
+	private void spawnExplosion(Entity invader)
+	{
+		final int particleCount = particleGovernor.getParticleCount( particleSystemPool.getParticleCount() , particlePool.getUsedCount() );
+		if ( particleCount > 0 ) // particle budget not used up yet
+		{
+			final float lifeTime = particleGovernor.getLifeTime( particleSystemPool.getLifeTime() );
+			effects.add( particleSystemPool.acquire( invader.getX() , invader.getY() , particleCount , lifeTime , effectsRandom ) );
+		}
+	}
+
 	private void spawnBarricades()
 	{
-		barricades.forEach( Entity::onDispose );
-		barricades.clear();
+		if ( ! barricades.isEmpty() )
+		{
+			// barricades always get placed at the same positions, just repair them
+			barricades.forEach( Barricade::repair );
+			return;
+		}
 
 		final int widthPerBarricade = Constants.VIEWPORT.width/ Constants.BARRICADE_COUNT;
 
@@ -257,16 +491,43 @@ public final class Game extends JPanel
 		final int remainingWidth = Constants.VIEWPORT.width - requiredWidth;
 		final int xStartingOffset = Constants.VIEWPORT.x + Math.max( 0 ,  remainingWidth/2 );
 		final int yStartingOffset = Constants.VIEWPORT.y + invaderSprite.size().height();
+		final InvaderFormation formation = new InvaderFormation( Constants.INVADERS_PER_ROW , Constants.ROWS_OF_INVADERS , currentInvaderVelocity.x );
 		for ( int x = 0 ; x < Constants.INVADERS_PER_ROW ; x++ )
 		{
 			for ( int y = 0 ; y < Constants.ROWS_OF_INVADERS ; y++ )
 			{
 				final int xStart = xStartingOffset + x * invaderSprite.size().width() + x*invaderSprite.size().width()/2;
 				final int yStart = yStartingOffset + y * invaderSprite.size().height() + (int) (y*invaderSprite.size().height()*0.3f);
-				nonStaticEntities.add( new Invader(new Vec2d(xStart,yStart) , new Vec2d( currentInvaderVelocity.x , 0 ) , invaderSprite ) );
+				formation.spawn( new Vec2d(xStart,yStart) , invaderSprite , x , y );
 			}
 		}
-		invadersRemaining = Constants.INVADERS_PER_ROW * Constants.ROWS_OF_INVADERS;
+		addInvaders( formation );
+	}
+
+	private void addInvaders(InvaderFormation formation)
+	{
+		invaderFormation = formation;
+		formation.forEach( entities::add );
+		invadersRemaining = formation.size();
+	}
+
+	/**
+	 * Replace the current wave of invaders.
+	 *
+	 * @param formation
+	 */
+	public void setInvaderFormation(InvaderFormation formation)
+	{
+		if ( formation == null ) {
+			throw new IllegalArgumentException("formation must not be NULL");
+		}
+		final List<Entity> toRemove = entities.asList().stream().filter( Entity::isInvader ).collect( Collectors.toList() );
+		removeEntities( toRemove );
+		addInvaders( formation );
+	}
+
+	public InvaderFormation getInvaderFormation() {
+		return invaderFormation;
 	}
 
 	public GameState getGameState() {
@@ -275,29 +536,57 @@ public final class Game extends JPanel
 
 	public void advanceGameState()
 	{
+		long time = System.nanoTime();
+
+		// apply changes requested since the last tick (for example bullets fired by the player)
+		commands.flush( commandTarget );
+
 		// remove dead entities
-		nonStaticEntities.removeIf( entity -> {
-			if ( entity.isDead() ) {
-				entity.onDispose();
-				return true;
-			}
-			return false;
-		});
+		entities.removeDead();
+		effects.removeDead();
+
+		time = profiler.record( Phase.REMOVE_DEAD , time );
 
 		maybeFlipInvaderMovementDirection();
 
-		new ArrayList<>(pureTickListeners).forEach( e -> e.tick(tickContext ) );
+		time = profiler.record( Phase.INVADER_FLIP , time );
+
+		// listeners added/removed while ticking listeners only take effect after all listeners have been ticked
+		final List<ITickListener> listeners = pureTickListeners;
+		for ( int i = 0 , len = listeners.size() ; i < len ; i++ ) {
+			listeners.get(i).tick( tickContext );
+		}
+		commands.flush( commandTarget );
+
+		time = profiler.record( Phase.TICK_LISTENERS , time );
+
+		// move all entities, then tick them. Entities spawned while ticking
+		// get added afterwards and are moved/ticked for the first time during the next tick
+		entities.integrate();
+		if ( invaderFormation != null ) {
+			invaderFormation.move( currentTick );
+		}
+		entities.tick( tickContext );
+		commands.flush( commandTarget );
+
+		time = profiler.record( Phase.TICK_ENTITIES , time );
+
+		// move the particles of all explosions at once
+		effects.tick( tickContext );
+		particleSimulator.tick( elapsedTimeInSeconds );
 
-		// tick all entities, need to iterate over a copy here since
-		// Entity#tick() might add/remove entities from the collection
-		// while we're iterating (and this would cause a ConcurrentModificationException)
-		new ArrayList<>( nonStaticEntities ).forEach( e -> e.tick(tickContext) );
+		time = profiler.record( Phase.PARTICLES , time );
 
 		// find colliding entities (can only be bullet<->player or bullet<->invader since bullets cannot collide with each other)
-		final List<Entity> collidingEntities = nonStaticEntities.stream().filter( a -> a.isAlive() && a.collidesWith(nonStaticEntities) ).collect(Collectors.toList());
+		final List<Entity> collidingEntities = this.collidingEntities;
+		collidingEntities.clear();
+		broadphase.findColliding( entities.asList() , collidingEntities );
+		collidingEntityCount = collidingEntities.size();
 
 		// find entities that are off-screen
-		final List<Entity> toRemove = nonStaticEntities.stream().filter( entity -> entity.destroyWhenOffScreen() & entity.isOffScreen( Constants.VIEWPORT )  ).collect(Collectors.toList());
+		final List<Entity> toRemove = this.entitiesToRemove;
+		toRemove.clear();
+		entities.findOffScreen( Constants.VIEWPORT , toRemove );
 
 		if ( collidingEntities.contains( player ) ) // must be player <-> bullet collision
 		{
@@ -306,36 +595,47 @@ public final class Game extends JPanel
 			if ( player.lifes == 0 )
 			{
 				setGameState( GameState.GAME_OVER );
-				SoundEffect.GAME_OVER.play();
+				soundSystem.play( SoundEffect.GAME_OVER );
 			} else {
-				SoundEffect.ONE_LIFE_LOST.play();
+				soundSystem.play( SoundEffect.ONE_LIFE_LOST );
 				collidingEntities.remove(player);
-				toRemove.addAll( collidingEntities );
+				addAll( collidingEntities , toRemove );
 			}
 		} else {
-			toRemove.addAll( collidingEntities );
+			addAll( collidingEntities , toRemove );
 		}
 
 		if ( gameState.state != GameState.GAME_OVER )
 		{
-			final List<Entity> destroyedInvaders = toRemove.stream().filter( Entity::isInvader ).collect(Collectors.toList() );
-			destroyedInvaders.forEach( e -> e.onHit(tickContext) );
-
-			destroyedInvaders.forEach( invader ->
+			int invadersDestroyed = 0;
+			for ( int i = 0 , len = toRemove.size() ; i < len ; i++ )
 			{
-				final ParticleEffect effect = new ParticleEffect( invader.position , 100 , 0.6f );
-				nonStaticEntities.add( new ParticleSystem( particlePool , effect ) );
-			});
-			toRemove.removeIf( e -> e.isInvader() & ! e.isDead() );
+				final Entity invader = toRemove.get(i);
+				if ( invader.isInvader() && invader.isAlive() ) // dying invaders may still leave the screen
+				{
+					invader.onHit(tickContext);
+					spawnExplosion( invader );
+					invadersDestroyed++;
+				}
+			}
 
-			final long invadersDestroyed = destroyedInvaders.size();
+			// invaders get removed once they're done flashing
+			int dst = 0;
+			for ( int src = 0 , len = toRemove.size() ; src < len ; src++ )
+			{
+				final Entity e = toRemove.get(src);
+				if ( ! e.isInvader() || e.isDead() ) {
+					toRemove.set( dst++ , e );
+				}
+			}
+			truncate( toRemove , dst );
 
 			// increase player score
 			final float percentage = Math.max(0.1f, ticksTillDifficultyIncrease / (float) Constants.DIFFICULITY_INCREASE_AFTER_TICKS);
 			player.increaseScore( (int) (invadersDestroyed * 100 * difficulty *percentage) );
 
 			for ( int i = 0 ; i < invadersDestroyed ; i++ ) {
-				SoundEffect.INVADER_DESTROYED.play();
+				soundSystem.play( SoundEffect.INVADER_DESTROYED );
 			}
 
 			invadersRemaining -= invadersDestroyed;
@@ -346,7 +646,7 @@ public final class Game extends JPanel
 				if ( invadersRemaining <= 0 )
 				{
 					if ( eligibleForBonus ) {
-						SoundEffect.WAVE_COMPLETED.play();
+						soundSystem.play( SoundEffect.WAVE_COMPLETED );
 						player.increaseScore( 10000 );
 					}
 					eligibleForBonus = true;
@@ -361,16 +661,22 @@ public final class Game extends JPanel
 		// discard all bullets that collided with either the player or an invader
 		removeEntities( toRemove );
 
+		time = profiler.record( Phase.COLLISION , time );
+
 		// check the remaining bullets for collisions with barricades
-		final List<Entity> bullets =  nonStaticEntities.stream().filter( Entity::isBullet ).collect(Collectors.toList());
-		final List<Entity> bulletsToRemove = new ArrayList<>();
+		final List<Entity> bulletsToRemove = this.entitiesToRemove;
+		bulletsToRemove.clear();
 
 		outer:
-			for ( final Entity bullet: bullets )
+			for ( int i = 0 , len = entities.size() ; i < len ; i++ )
 			{
-				for ( final Barricade barricade : barricades )
+				final Entity bullet = entities.get( i );
+				if ( ! bullet.isBullet() ) {
+					continue;
+				}
+				for ( int j = 0 , barricadeCount = barricades.size() ; j < barricadeCount ; j++ )
 				{
-					if ( barricade.hitBy( (Bullet) bullet ) ) {
+					if ( barricades.get(j).hitBy( (Bullet) bullet ) ) {
 						bulletsToRemove.add( bullet );
 						continue outer;
 					}
@@ -378,36 +684,35 @@ public final class Game extends JPanel
 			}
 
 		removeEntities( bulletsToRemove );
+
+		// apply changes requested while resolving collisions (for example animations started by invaders getting hit)
+		commands.flush( commandTarget );
+
+		profiler.record( Phase.BARRICADES , time );
 	}
 
-	private void maybeFlipInvaderMovementDirection()
+	private static void addAll(List<Entity> source,List<Entity> destination)
 	{
-		// find left-most and right-most invader
-
-		Invader rightMost = null;
-		Invader leftMost = null;
-		for ( final Entity e : nonStaticEntities ) {
-			if ( e.isInvader() ) {
-				if ( rightMost == null || e.position.x > rightMost.position.x ) {
-					rightMost = (Invader) e;
-				}
-				if ( leftMost == null || e.position.x < leftMost.position.x ) {
-					leftMost = (Invader) e;
-				}
-			}
+		for ( int i = 0 , len = source.size() ; i < len ; i++ ) {
+			destination.add( source.get(i) );
+		}
+	}
+
+	private static void truncate(List<Entity> list,int newSize)
+	{
+		for ( int i = list.size()-1 ; i >= newSize ; i-- ) {
+			list.remove( i );
 		}
+	}
 
+	private void maybeFlipInvaderMovementDirection()
+	{
 		// flip invader movement direction if either the left-most or right-most
-		// hit the screen border
-		if ( ( leftMost != null && leftMost.left() < 0 ) || ( rightMost != null && rightMost.right() > Constants.VIEWPORT.getMaxX() ) )
+		// invader hit the screen border
+		final InvaderFormation formation = invaderFormation;
+		if ( formation != null && ! formation.isEmpty() && ( formation.left() < 0 || formation.right() > Constants.VIEWPORT.getMaxX() ) )
 		{
-			nonStaticEntities.stream().filter( Entity::isInvader ).forEach( invader ->
-			{
-				if ( invader.bottom() < Constants.VIEWPORT.y+Constants.VIEWPORT.height*0.8 ) {
-					invader.position.y += 2;
-				}
-				invader.velocity.x = -invader.velocity.x;
-			});
+			formation.flip( currentTick );
 		}
 	}
 
@@ -419,19 +724,39 @@ public final class Game extends JPanel
 		ticksTillDifficultyIncrease = Constants.DIFFICULITY_INCREASE_AFTER_TICKS;
 	}
 
-	@Override
-	protected void paintComponent(Graphics g)
+	/**
+	 * Setup the renderer's background buffer.
+	 *
+	 * @param context renderer-specific context (the Swing component to render to for the AWT renderer), may be <code>null</code>
+	 */
+	public void initializeRenderer(Object context)
+	{
+		synchronized(RENDERER_LOCK)
+		{
+			if ( ! rendererInitialized )
+			{
+				renderer.initialize( context );
+				this.uiTheme.initialize( this ,  renderer );
+				rendererInitialized = true;
+			}
+		}
+	}
+
+	/**
+	 * Transfer the background buffer to the screen.
+	 *
+	 * @param context renderer-specific context (the AWT <code>Graphics</code> to draw to for the AWT renderer)
+	 */
+	public void present(Object context)
 	{
 		synchronized(RENDERER_LOCK)
 		{
 			if ( ! rendererInitialized ) // first render pass ever, force rendering to backbuffer
 			{
 				gameState.render( this , uiTheme );
-				rendererInitialized = true;
 			}
-			renderer.end( g );
+			renderer.end( context );
 		}
-		screenRendered.set(true);
 	}
 
 	public void render(Consumer<IRenderer> callback)
@@ -439,13 +764,9 @@ public final class Game extends JPanel
 		synchronized(RENDERER_LOCK)
 		{
 			// if not done yet, setup background buffer to render to
-			if ( ! rendererInitialized ) {
-				renderer.initialize( this );
-				this.uiTheme.initialize( this ,  renderer );
-				rendererInitialized = true;
-			}
+			initializeRenderer( null );
 
-			renderer.begin(); // note: IRenderer.end() gets called by paintComponent();
+			renderer.begin(); // note: IRenderer.end() gets called by present();
 
 			renderer.clearScreen();
 
@@ -454,25 +775,150 @@ public final class Game extends JPanel
 	}
 
 	private void removeEntity(Entity toRemove) {
+		// remove first, disposing may return the entity to a pool
+		entities.remove( toRemove );
 		toRemove.onDispose();
-		nonStaticEntities.remove( toRemove );
 	}
 
-	private void removeEntities(Collection<Entity> toRemove) {
-		toRemove.forEach( Entity::onDispose );
-		nonStaticEntities.removeAll( toRemove );
+	private void removeEntities(List<Entity> toRemove) {
+		for ( int i = 0 , len = toRemove.size() ; i < len ; i++ ) {
+			removeEntity( toRemove.get(i) );
+		}
 	}
 
+	/**
+	 * Advance the simulation by one (fixed) time step.
+	 *
+	 * @param elapsedSeconds
+	 */
 	public void tick(float elapsedSeconds)
 	{
+		final long startTime = System.nanoTime();
+
+		// only allocate the event while it is being recorded, a tick should not allocate otherwise
+		final TickEvent event = TICK_EVENT_TYPE.isEnabled() ? new TickEvent() : null;
+		if ( event != null ) {
+			event.begin();
+		}
+
+		final GameState stateBefore = gameState.state;
+
 		currentTick++;
 
 		elapsedTimeInSeconds = elapsedSeconds;
 
+		// remember positions so rendering can interpolate between this and the next state
+		entities.savePositions();
+
+		if ( keyboardInput.wasPressed( KeyEvent.VK_F3 ) ) {
+			profilerOverlayVisible = ! profilerOverlayVisible;
+		}
+
 		// advance game state
 		gameState.tick(this , tickContext );
 
+		// game states that do not advance the game may still have requested changes
+		commands.flush( commandTarget );
+
+		profiler.record( Phase.TICK , startTime );
+
+		if ( event != null )
+		{
+			event.end();
+			if ( event.shouldCommit() ) {
+				commitTickEvent( event , stateBefore );
+			}
+		}
+	}
+
+	private void commitTickEvent(TickEvent event,GameState stateBefore)
+	{
+		event.tick = currentTick;
+		event.gameState = stateBefore.name();
+		if ( stateBefore == GameState.PLAYING )
+		{
+			event.removeDeadNanos = profiler.getHistogram( Phase.REMOVE_DEAD ).getLastValue();
+			event.invaderFlipNanos = profiler.getHistogram( Phase.INVADER_FLIP ).getLastValue();
+			event.tickListenersNanos = profiler.getHistogram( Phase.TICK_LISTENERS ).getLastValue();
+			event.tickEntitiesNanos = profiler.getHistogram( Phase.TICK_ENTITIES ).getLastValue();
+			event.particlesNanos = profiler.getHistogram( Phase.PARTICLES ).getLastValue();
+			event.collisionNanos = profiler.getHistogram( Phase.COLLISION ).getLastValue();
+			event.barricadesNanos = profiler.getHistogram( Phase.BARRICADES ).getLastValue();
+			event.collidingEntityCount = collidingEntityCount;
+		}
+		event.entityCount = entities.size();
+		event.invaderCount = entities.count( EntityType.INVADER );
+		event.bulletCount = entities.count( EntityType.BULLET );
+		event.particleSystemCount = effects.size();
+		event.particleBudget = particleGovernor.getParticleBudget();
+		event.particleDegradationLevel = particleGovernor.getDegradationLevel();
+		event.commit();
+	}
+
+	/**
+	 * Render the current game state to the background buffer.
+	 *
+	 * @param interpolationAlpha fraction of a simulation tick (0...1) that elapsed since the last call to {@link #tick(float)}
+	 */
+	public void renderFrame(float interpolationAlpha)
+	{
+		final long startTime = profiler.frameStarted();
+
+		this.interpolationAlpha = interpolationAlpha;
+
 		// update screen
 		gameState.render(this , uiTheme );
+
+		profiler.record( Phase.RENDER , startTime );
+
+		// adjust particle budget to how long the latest tick and this frame took
+		particleGovernor.update( profiler );
+	}
+
+	public float getInterpolationAlpha() {
+		return interpolationAlpha;
+	}
+
+	/**
+	 * Set the collision detection strategy.
+	 *
+	 * @param broadphase
+	 * @see BroadphaseType
+	 */
+	public void setBroadphase(IBroadphase broadphase)
+	{
+		if ( broadphase == null ) {
+			throw new IllegalArgumentException("broadphase must not be NULL");
+		}
+		this.broadphase = broadphase;
+	}
+
+	public IBroadphase getBroadphase() {
+		return broadphase;
+	}
+
+	public TickProfiler getProfiler() {
+		return profiler;
+	}
+
+	public ParticleGovernor getParticleGovernor() {
+		return particleGovernor;
+	}
+
+	/**
+	 * Returns the number of particles currently in use.
+	 *
+	 * @return
+	 */
+	public int getParticleCount() {
+		return particlePool.getUsedCount();
+	}
+
+	public boolean isProfilerOverlayVisible() {
+		return profilerOverlayVisible;
+	}
+
+	public void setProfilerOverlayVisible(boolean visible) {
+		this.profilerOverlayVisible = visible;
 	}
 }
\ No newline at end of file
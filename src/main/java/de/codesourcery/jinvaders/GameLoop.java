@@ -0,0 +1,135 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Game loop that advances the simulation in fixed time steps and renders
+ * frames at a (separate) target frame rate.
+ *
+ * Time that passes between two frames is accumulated and consumed in fixed-size
+ * simulation ticks, the remainder is used to interpolate entity positions
+ * between the last two simulation states when rendering. Instead of spinning,
+ * the loop parks the calling thread until the next frame is due.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class GameLoop
+{
+	private final Game game;
+	private final Runnable presenter;
+
+	private final long nanosPerTick;
+	private final long nanosPerFrame;
+	private final int maxTicksPerFrame;
+	private final float secondsPerTick;
+
+	private volatile boolean running;
+
+	/**
+	 *
+	 * @param game
+	 * @param presenter invoked after each frame has been rendered to the background buffer, responsible for getting it on screen
+	 */
+	public GameLoop(Game game,Runnable presenter) {
+		this( game , presenter , Constants.TICKS_PER_SECOND , Constants.FRAMES_PER_SECOND , Constants.MAX_TICKS_PER_FRAME );
+	}
+
+	public GameLoop(Game game,Runnable presenter,int ticksPerSecond,int framesPerSecond,int maxTicksPerFrame)
+	{
+		if ( game == null ) {
+			throw new IllegalArgumentException("game must not be NULL");
+		}
+		if ( presenter == null ) {
+			throw new IllegalArgumentException("presenter must not be NULL");
+		}
+		if ( ticksPerSecond < 1 || framesPerSecond < 1 ) {
+			throw new IllegalArgumentException("ticks/frames per second must be >= 1");
+		}
+		if ( maxTicksPerFrame < 1 ) {
+			throw new IllegalArgumentException("maxTicksPerFrame must be >= 1");
+		}
+		this.game = game;
+		this.presenter = presenter;
+		this.nanosPerTick = 1_000_000_000L / ticksPerSecond;
+		this.nanosPerFrame = 1_000_000_000L / framesPerSecond;
+		this.maxTicksPerFrame = maxTicksPerFrame;
+		this.secondsPerTick = 1f / ticksPerSecond;
+	}
+
+	/**
+	 * Runs the game loop on the calling thread until {@link #stop()} gets called.
+	 */
+	public void run()
+	{
+		running = true;
+
+		long accumulator = 0;
+		long previousTime = System.nanoTime();
+		long nextFrameTime = previousTime + nanosPerFrame;
+
+		while ( running )
+		{
+			final long now = System.nanoTime();
+			accumulator += now - previousTime;
+			previousTime = now;
+
+			// advance simulation in fixed steps
+			int ticks = 0;
+			while ( accumulator >= nanosPerTick && ticks < maxTicksPerFrame )
+			{
+				game.tick( secondsPerTick );
+				accumulator -= nanosPerTick;
+				ticks++;
+			}
+
+			if ( accumulator >= nanosPerTick ) {
+				// we're too far behind (rendering/simulation too slow or the process got suspended),
+				// give up on catching up so we don't end up in a spiral of death
+				accumulator %= nanosPerTick;
+			}
+
+			game.renderFrame( accumulator / (float) nanosPerTick );
+			presenter.run();
+
+			nextFrameTime = sleepUntil( nextFrameTime );
+		}
+	}
+
+	private long sleepUntil(long deadline)
+	{
+		long remaining = deadline - System.nanoTime();
+		if ( remaining < -nanosPerFrame ) {
+			// missed more than one frame, re-synchronize instead of rendering a burst of frames
+			return System.nanoTime() + nanosPerFrame;
+		}
+		while ( remaining > 0 )
+		{
+			LockSupport.parkNanos( remaining );
+			remaining = deadline - System.nanoTime();
+		}
+		return deadline + nanosPerFrame;
+	}
+
+	public void stop() {
+		running = false;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders;
+
+import java.awt.Graphics;
+
+import javax.swing.JPanel;
+
+/**
+ * Swing component that displays a {@link Game} and forwards keyboard input to it.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class GamePanel extends JPanel
+{
+	private final Game game;
+
+	public GamePanel(Game game)
+	{
+		this.game = game;
+
+		setPreferredSize(Constants.SCREEN_SIZE);
+		setSize(Constants.SCREEN_SIZE );
+
+		// we're rendering to a background buffer anyway , disable double buffering
+		setDoubleBuffered(false);
+
+		addKeyListener( game.getKeyboardInput() );
+	}
+
+	@Override
+	public void addNotify()
+	{
+		super.addNotify();
+		// we now have a graphics configuration, setup background buffer
+		game.initializeRenderer( this );
+	}
+
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		game.present( g );
+	}
+}
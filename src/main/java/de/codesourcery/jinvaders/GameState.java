@@ -22,7 +22,7 @@ import java.util.Optional;
 import de.codesourcery.jinvaders.entity.ITickContext;
 import de.codesourcery.jinvaders.entity.Player;
 import de.codesourcery.jinvaders.graphics.UITheme;
-import de.codesourcery.jinvaders.util.KeyboardInput;
+import de.codesourcery.jinvaders.util.IPlayerInput;
 
 public enum GameState
 {
@@ -47,18 +47,18 @@ public enum GameState
 				@Override
 				public void tick(Game game,ITickContext ctx)
 				{
-					final KeyboardInput keyboardInput = game.getKeyboardInput();
+					final int input = game.pollPlayerInput();
 					final Player player = game.getPlayer();
 
-					if ( keyboardInput.isPressed(KeyEvent.VK_A) ) {
+					if ( ( input & IPlayerInput.MOVE_LEFT ) != 0 ) {
 						player.moveLeft( Constants.PLAYER_VELOCITY );
 					}
-					else if ( keyboardInput.isPressed( KeyEvent.VK_D ) ) {
+					else if ( ( input & IPlayerInput.MOVE_RIGHT ) != 0 ) {
 						player.moveRight( Constants.PLAYER_VELOCITY );
 					} else {
 						player.stop();
 					}
-					if ( keyboardInput.isPressed( KeyEvent.VK_SPACE ) )
+					if ( ( input & IPlayerInput.FIRE ) != 0 )
 					{
 						player.shoot(ctx);
 					}
@@ -16,43 +16,30 @@
 package de.codesourcery.jinvaders;
 
 import javax.swing.JFrame;
-import javax.swing.Timer;
 
 import de.codesourcery.jinvaders.graphics.AWTRenderer;
+import de.codesourcery.jinvaders.sound.JavaSoundSystem;
 
 public class Main
 {
 	public static void main(String[] args)
 	{
-		final Game game = new Game( new AWTRenderer() );
+		final Game game = new Game( new AWTRenderer() , new JavaSoundSystem() );
+		final GamePanel panel = new GamePanel( game );
 
 		// setup game screen
 		final JFrame frame = new JFrame("JavaInvaders");
 		frame.setDefaultCloseOperation( JFrame.EXIT_ON_CLOSE );
 
-		frame.getContentPane().add(game);
+		frame.getContentPane().add(panel);
 		frame.pack();
 		frame.setResizable(false); // resizing would only make sense if rendering would adapt to the screen size...which is currently not implemented
 		frame.setVisible(true);
 
-		// Swing thread/timer that redraws game screen
-		new Timer( 1000 / Constants.TICKS_PER_SECOND , event -> game.repaint() ).start();
-
 		// request focus so that game screen receives keyboard input
-		game.requestFocus();
+		panel.requestFocus();
 
 		// main game loop
-		long time1 = System.nanoTime();
-		while(true)
-		{
-			// busy-wait until EDT has redrawn screen
-			// (spinning is wasteful but rendering shouldn't take long
-			// and using a lock & wait() here will probably be more costly because of
-			// context switching)
-			while( ! game.screenRendered.compareAndSet(true,false) ) {}
-			final long time2 = System.nanoTime();
-			game.tick( (time2-time1)/1_000_000_000f );
-			time1 = System.nanoTime();
-		}
+		new GameLoop( game , panel::repaint ).run();
 	}
 }
\ No newline at end of file
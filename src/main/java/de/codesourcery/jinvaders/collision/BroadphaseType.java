@@ -0,0 +1,82 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.collision;
+
+import java.util.Arrays;
+
+import de.codesourcery.jinvaders.Constants;
+
+/**
+ * Available collision detection strategies.
+ *
+ * The strategy used by the game can be chosen at startup using the
+ * <code>{@value #SYSTEM_PROPERTY}</code> system property.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public enum BroadphaseType
+{
+	BRUTE_FORCE {
+		@Override
+		public IBroadphase create() {
+			return new BruteForceBroadphase();
+		}
+	},
+	UNIFORM_GRID {
+		@Override
+		public IBroadphase create() {
+			return new UniformGrid( Constants.VIEWPORT , Constants.COLLISION_GRID_CELL_SIZE );
+		}
+	},
+	SWEEP_AND_PRUNE {
+		@Override
+		public IBroadphase create() {
+			return new SweepAndPrune();
+		}
+	};
+
+	public static final String SYSTEM_PROPERTY = "jinvaders.broadphase";
+
+	public static final BroadphaseType DEFAULT = UNIFORM_GRID;
+
+	/**
+	 * Create a new broadphase instance.
+	 *
+	 * Instances may not be shared between games.
+	 *
+	 * @return
+	 */
+	public abstract IBroadphase create();
+
+	/**
+	 * Returns the strategy selected by the <code>{@value #SYSTEM_PROPERTY}</code> system property.
+	 *
+	 * @return selected strategy or {@link #DEFAULT} if the property is not set
+	 */
+	public static BroadphaseType fromSystemProperties()
+	{
+		final String value = System.getProperty( SYSTEM_PROPERTY );
+		if ( value == null || value.trim().isEmpty() ) {
+			return DEFAULT;
+		}
+		try {
+			return valueOf( value.trim().toUpperCase() );
+		}
+		catch(final IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown broadphase '"+value+"', valid values: "+Arrays.toString( values() ) );
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.collision;
+
+import java.util.List;
+
+import de.codesourcery.jinvaders.entity.Entity;
+
+/**
+ * Checks every entity against every other entity.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class BruteForceBroadphase implements IBroadphase
+{
+	@Override
+	public void findColliding(List<Entity> entities, List<Entity> result)
+	{
+		for ( int i = 0 , len = entities.size() ; i < len ; i++ )
+		{
+			final Entity e = entities.get(i);
+			if ( e.isAlive() && e.collidesWith( entities ) ) {
+				result.add( e );
+			}
+		}
+	}
+}
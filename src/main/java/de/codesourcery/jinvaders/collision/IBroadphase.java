@@ -0,0 +1,41 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.collision;
+
+import java.util.List;
+
+import de.codesourcery.jinvaders.entity.Entity;
+
+/**
+ * Collision detection strategy.
+ *
+ * Implementations may keep state between invocations (and thus are not thread-safe) but
+ * must always yield the same result as checking each entity against all other entities
+ * using {@link Entity#collides(Entity)}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see BroadphaseType
+ */
+public interface IBroadphase
+{
+	/**
+	 * Find all alive entities that collide with at least one other entity.
+	 *
+	 * @param entities entities to check
+	 * @param result list to add colliding entities to, in the order they appear in <code>entities</code>
+	 */
+	public void findColliding(List<Entity> entities,List<Entity> result);
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.collision;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.codesourcery.jinvaders.entity.Entity;
+
+/**
+ * Sweep-and-prune collision detection along the X axis.
+ *
+ * Entities are kept sorted by {@link Entity#left()} between invocations. Since most entities
+ * (especially invaders moving in lock-step) hardly change their relative order from one tick
+ * to the next, the array is re-sorted using insertion sort which is close to O(n) in this case.
+ *
+ * Sweeping the sorted array only needs to check entities whose X intervals overlap, these candidates
+ * are then checked using {@link Entity#collides(Entity)} (in both directions since collision
+ * rules are not necessarily symmetric).
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class SweepAndPrune implements IBroadphase
+{
+	private static final class Item
+	{
+		public Entity entity;
+		public int left;
+		public int right;
+		public int top;
+		public int bottom;
+		public int lastSeen;
+		public boolean colliding;
+
+	}
+
+	private final Map<Entity,Item> itemsByEntity = new IdentityHashMap<>();
+
+	// items sorted ascending by left X coordinate
+	private Item[] sorted = new Item[64];
+	private int itemCount;
+
+	// items of entities that are gone, re-used for new entities
+	private Item[] freeItems = new Item[64];
+	private int freeItemCount;
+
+	private int invocation;
+
+	@Override
+	public void findColliding(List<Entity> entities,List<Entity> result)
+	{
+		invocation++;
+
+		update( entities );
+		insertionSort();
+		sweep();
+
+		for ( int i = 0 , len = entities.size() ; i < len ; i++ )
+		{
+			final Entity e = entities.get(i);
+			if ( e.isAlive() && e.canCollide() )
+			{
+				final Item item = itemsByEntity.get( e );
+				if ( item.colliding ) {
+					result.add( e );
+				}
+			}
+		}
+	}
+
+	private void update(List<Entity> entities)
+	{
+		// add new entities to the end of the sorted list, refresh bounds of existing ones
+		for ( int i = 0 , len = entities.size() ; i < len ; i++ )
+		{
+			final Entity e = entities.get(i);
+			if ( ! e.canCollide() ) {
+				continue;
+			}
+			Item item = itemsByEntity.get( e );
+			if ( item == null )
+			{
+				item = freeItemCount > 0 ? freeItems[ --freeItemCount ] : new Item();
+				item.entity = e;
+				itemsByEntity.put( e , item );
+				if ( itemCount == sorted.length ) {
+					sorted = Arrays.copyOf( sorted , itemCount + itemCount/2 );
+				}
+				sorted[ itemCount++ ] = item;
+			}
+			item.lastSeen = invocation;
+			item.colliding = false;
+			item.left = e.left();
+			item.right = e.right();
+			item.top = e.top();
+			item.bottom = e.bottom();
+		}
+
+		// discard entities that are gone or can no longer collide
+		int dst = 0;
+		for ( int src = 0 ; src < itemCount ; src++ )
+		{
+			final Item item = sorted[src];
+			if ( item.lastSeen == invocation ) {
+				sorted[dst++] = item;
+			} else {
+				itemsByEntity.remove( item.entity );
+				item.entity = null;
+				if ( freeItemCount == freeItems.length ) {
+					freeItems = Arrays.copyOf( freeItems , freeItemCount * 2 );
+				}
+				freeItems[ freeItemCount++ ] = item;
+			}
+		}
+		Arrays.fill( sorted , dst , itemCount , null );
+		itemCount = dst;
+	}
+
+	private void insertionSort()
+	{
+		for ( int i = 1 ; i < itemCount ; i++ )
+		{
+			final Item item = sorted[i];
+			int j = i - 1;
+			while ( j >= 0 && sorted[j].left > item.left )
+			{
+				sorted[j+1] = sorted[j];
+				j--;
+			}
+			sorted[j+1] = item;
+		}
+	}
+
+	private void sweep()
+	{
+		for ( int i = 0 ; i < itemCount ; i++ )
+		{
+			final Item a = sorted[i];
+			for ( int j = i+1 ; j < itemCount ; j++ )
+			{
+				final Item b = sorted[j];
+				if ( b.left > a.right ) {
+					break; // no overlap on X axis with this or any of the following items
+				}
+				if ( b.top > a.bottom || b.bottom < a.top ) {
+					continue;
+				}
+				if ( ! a.colliding && a.entity.collides( b.entity ) ) {
+					a.colliding = true;
+				}
+				if ( ! b.colliding && b.entity.collides( a.entity ) ) {
+					b.colliding = true;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.collision;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+import de.codesourcery.jinvaders.entity.Entity;
+
+/**
+ * Broadphase collision detection using a uniform grid.
+ *
+ * The grid covers a fixed area (usually the viewport), entities that are (partially) outside
+ * of this area get assigned to the nearest border cells. The grid is rebuilt from scratch on each tick
+ * using a counting sort, so apart from growing its internal arrays when the number of entities
+ * increases, no memory gets allocated.
+ *
+ * Only entities sharing at least one cell are checked using {@link Entity#collides(Entity)}, so the
+ * collision rules implemented by the entity subclasses are respected.
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class UniformGrid implements IBroadphase
+{
+	private final int originX;
+	private final int originY;
+	private final int cellSize;
+	private final int columns;
+	private final int rows;
+
+	// index of first item in each cell (cellStart[cellCount] = total number of cell entries)
+	private final int[] cellStart;
+	// next free slot in each cell while filling the grid
+	private final int[] cellFillPtr;
+
+	// entities that may collide, in the order they were passed to rebuild()
+	private Entity[] items = new Entity[64];
+	private int itemCount;
+
+	// range of cells covered by each item (minX,maxX,minY,maxY)
+	private int[] itemCells = new int[ 64*4 ];
+
+	// item indices, sorted by cell
+	private int[] cellItems = new int[ 64 ];
+
+	public UniformGrid(Rectangle bounds,int cellSize)
+	{
+		if ( cellSize < 1 ) {
+			throw new IllegalArgumentException("Cell size must be >= 1");
+		}
+		if ( bounds.width < 1 || bounds.height < 1 ) {
+			throw new IllegalArgumentException("Invalid bounds: "+bounds);
+		}
+		this.originX = bounds.x;
+		this.originY = bounds.y;
+		this.cellSize = cellSize;
+		this.columns = ( bounds.width + cellSize - 1 ) / cellSize;
+		this.rows = ( bounds.height + cellSize - 1 ) / cellSize;
+		this.cellStart = new int[ columns*rows + 1 ];
+		this.cellFillPtr = new int[ columns*rows ];
+	}
+
+	/**
+	 * Insert entities into the grid, discarding any previous contents.
+	 *
+	 * Entities that cannot collide are ignored.
+	 *
+	 * @param entities
+	 */
+	public void rebuild(List<Entity> entities)
+	{
+		itemCount = 0;
+		Arrays.fill( cellStart , 0 );
+
+		final int len = entities.size();
+		if ( items.length < len ) {
+			items = new Entity[ len + len/2 ];
+			itemCells = new int[ items.length*4 ];
+		}
+
+		// pass 1: count entries per cell
+		int totalEntries = 0;
+		for ( int i = 0 ; i < len ; i++ )
+		{
+			final Entity e = entities.get(i);
+			if ( ! e.canCollide() ) {
+				continue;
+			}
+			final int minX = column( e.left() );
+			final int maxX = column( e.right() );
+			final int minY = row( e.top() );
+			final int maxY = row( e.bottom() );
+
+			final int ptr = itemCount*4;
+			itemCells[ptr  ] = minX;
+			itemCells[ptr+1] = maxX;
+			itemCells[ptr+2] = minY;
+			itemCells[ptr+3] = maxY;
+			items[ itemCount++ ] = e;
+
+			for ( int y = minY ; y <= maxY ; y++ )
+			{
+				for ( int x = minX ; x <= maxX ; x++ ) {
+					cellStart[ y*columns + x ]++;
+				}
+			}
+			totalEntries += ( maxX - minX + 1 ) * ( maxY - minY + 1 );
+		}
+
+		// turn counts into start offsets
+		int offset = 0;
+		for ( int i = 0 , cells = columns*rows ; i < cells ; i++ )
+		{
+			final int count = cellStart[i];
+			cellStart[i] = offset;
+			cellFillPtr[i] = offset;
+			offset += count;
+		}
+		cellStart[ columns*rows ] = offset;
+
+		// pass 2: sort items into cells
+		if ( cellItems.length < totalEntries ) {
+			cellItems = new int[ totalEntries + totalEntries/2 ];
+		}
+		for ( int i = 0 ; i < itemCount ; i++ )
+		{
+			final int ptr = i*4;
+			for ( int y = itemCells[ptr+2] , maxY = itemCells[ptr+3] ; y <= maxY ; y++ )
+			{
+				for ( int x = itemCells[ptr] , maxX = itemCells[ptr+1] ; x <= maxX ; x++ ) {
+					cellItems[ cellFillPtr[ y*columns + x ]++ ] = i;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void findColliding(List<Entity> entities,List<Entity> result)
+	{
+		rebuild( entities );
+		findColliding( result );
+	}
+
+	/**
+	 * Find all entities that collide with at least one other entity.
+	 *
+	 * Entities are added to the result in the order they were passed
+	 * to {@link #rebuild(List)}.
+	 *
+	 * @param result
+	 */
+	public void findColliding(List<Entity> result)
+	{
+		for ( int i = 0 ; i < itemCount ; i++ )
+		{
+			final Entity a = items[i];
+			if ( a.isAlive() && collidesWithAny( i ) ) {
+				result.add( a );
+			}
+		}
+	}
+
+	private boolean collidesWithAny(int index)
+	{
+		final Entity a = items[index];
+		final int ptr = index*4;
+		for ( int y = itemCells[ptr+2] , maxY = itemCells[ptr+3] ; y <= maxY ; y++ )
+		{
+			for ( int x = itemCells[ptr] , maxX = itemCells[ptr+1] ; x <= maxX ; x++ )
+			{
+				final int cell = y*columns + x;
+				for ( int j = cellStart[cell] , end = cellStart[cell+1] ; j < end ; j++ )
+				{
+					final int other = cellItems[j];
+					if ( other != index && a.collides( items[other] ) ) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Discard references to all entities.
+	 */
+	public void clear()
+	{
+		Arrays.fill( items , 0 , itemCount , null );
+		itemCount = 0;
+	}
+
+	private int column(int x)
+	{
+		final int col = Math.floorDiv( x - originX , cellSize );
+		return col < 0 ? 0 : col >= columns ? columns-1 : col;
+	}
+
+	private int row(int y)
+	{
+		final int row = Math.floorDiv( y - originY , cellSize );
+		return row < 0 ? 0 : row >= rows ? rows-1 : row;
+	}
+}
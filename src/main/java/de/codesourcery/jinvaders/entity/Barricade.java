@@ -15,23 +15,105 @@
  */
 package de.codesourcery.jinvaders.entity;
 
-import java.awt.Rectangle;
-import java.util.function.Function;
+import jdk.jfr.EventType;
 
 import de.codesourcery.jinvaders.graphics.IRenderer;
 import de.codesourcery.jinvaders.graphics.ImageHolder;
 import de.codesourcery.jinvaders.graphics.Sprite;
 import de.codesourcery.jinvaders.graphics.Vec2d;
+import de.codesourcery.jinvaders.jfr.BarricadeHitEvent;
 
+/**
+ * A barricade that gets eroded by bullets.
+ *
+ * Which pixels of the barricade are still intact is kept in a bitmask (one bit per pixel,
+ * packed into <code>long</code>s, {@link #wordsPerRow} words per scanline) so hit tests and erosion are
+ * word-wide bit operations.
+ *
+ * Undamaged barricades render the (shared) sprite image, a private copy is only
+ * created when the barricade takes damage for the first time. Afterwards, the copy gets updated
+ * from the mask when the barricade is rendered, and only the rectangle that changed since the last frame
+ * gets written.
+ */
 public final class Barricade extends Entity {
 
-	private final ImageHolder sprite;
+	private static final EventType HIT_EVENT_TYPE = EventType.getEventType( BarricadeHitEvent.class );
+
+	// shared, never modified
+	private final ImageHolder pristineImage;
+	private final long[] pristineMask;
+
+	// image to render, either the pristine image or the private copy
+	private ImageHolder image;
+	private ImageHolder privateCopy;
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+
+	// bit set => pixel is intact
+	private final long[] mask;
+
+	// area that changed since the image was last updated (inclusive)
+	private int dirtyX0;
+	private int dirtyY0;
+	private int dirtyX1;
+	private int dirtyY1;
+
+	// scratch buffer for updating the image
+	private int[] pixels;
 
 	public Barricade(Vec2d position,Sprite sprite)
 	{
 		super(position, Vec2d.ZERO, sprite.size() );
-		// copy sprite since we're going to write to it later on
-		this.sprite = sprite.image().createCopy();
+
+		this.pristineImage = sprite.image();
+		this.image = pristineImage;
+
+		this.width = pristineImage.getWidth();
+		this.height = pristineImage.getHeight();
+		this.wordsPerRow = ( width + 63 ) / 64;
+		this.pristineMask = new long[ wordsPerRow * height ];
+		for ( int y = 0 ; y < height ; y++ )
+		{
+			for ( int x = 0 ; x < width ; x++ )
+			{
+				if ( ( pristineImage.getRGB( x , y ) & 0x00ffffff ) != 0 ) { // ignore alpha channel
+					pristineMask[ y*wordsPerRow + x/64 ] |= 1L << ( x & 63 );
+				}
+			}
+		}
+		this.mask = pristineMask.clone();
+		clearDirtyRect();
+	}
+
+	/**
+	 * Restore this barricade to its original, undamaged state.
+	 */
+	public void repair()
+	{
+		System.arraycopy( pristineMask , 0 , mask , 0 , mask.length );
+		image = pristineImage;
+		clearDirtyRect();
+	}
+
+	/**
+	 * Returns whether this barricade has not been damaged yet (and thus renders the shared sprite image).
+	 *
+	 * @return
+	 */
+	public boolean isPristine() {
+		return image == pristineImage && ! isDirty();
+	}
+
+	private boolean isDirty() {
+		return dirtyY1 >= 0;
+	}
+
+	private void clearDirtyRect()
+	{
+		dirtyX0 = dirtyY0 = Integer.MAX_VALUE;
+		dirtyX1 = dirtyY1 = -1;
 	}
 
 	@Override
@@ -39,6 +121,16 @@ public final class Barricade extends Entity {
 		return false;
 	}
 
+	/**
+	 * Check whether a bullet hit this barricade and erode the barricade if so.
+	 *
+	 * Starting at the scanline where the bullet entered the barricade, pixels in the columns covered by
+	 * the bullet are cleared until three scanlines (counting from the first one that had any intact
+	 * pixels) have been processed.
+	 *
+	 * @param entity
+	 * @return <code>true</code> if the bullet hit any intact pixels
+	 */
 	public boolean hitBy(Bullet entity)
 	{
 		if ( ! collides( entity) ) {
@@ -46,30 +138,33 @@ public final class Barricade extends Entity {
 		}
 
 		// find intersecting rectangle
-		final Rectangle r1 = new Rectangle(position.x,position.y,size.width(),size.height());
-		final Rectangle r2 = new Rectangle(entity.position.x,entity.position.y,entity.size.width(),entity.size.height());
-
-		final Rectangle intersection = r1.intersection(r2); // note: intersection can never be empty unless the collides(Entity) method is broken
-		if ( intersection.isEmpty() ) {
+		final int x0 = Math.max( getX() , entity.getX() );
+		final int x1 = Math.min( getX() + getWidth() , entity.getX() + entity.getWidth() );
+		final int y0 = Math.max( getY() , entity.getY() );
+		final int y1 = Math.min( getY() + getHeight() , entity.getY() + entity.getHeight() );
+		if ( x1 <= x0 || y1 <= y0 ) { // touching edges only
 			return false;
 		}
 
+		// only allocate the event while it is being recorded
+		final BarricadeHitEvent event = HIT_EVENT_TYPE.isEnabled() ? new BarricadeHitEvent() : null;
+		if ( event != null ) {
+			event.begin();
+		}
+
 		final int yIncrement;
 		final int yStart; // in local coordinates !
-		final Function<Integer,Boolean> condition;
 		if ( entity.isMovingDown() )
 		{
 			// check starts at top
 			yIncrement=1;
-			yStart = intersection.y - position.y;
-			condition = y -> y < sprite.getHeight();
+			yStart = y0 - getY();
 		}
 		else if ( entity.isMovingUp() )
 		{
 			// check starts at bottom
 			yIncrement=-1;
-			yStart = intersection.y + intersection.height - position.y - 1;
-			condition = y -> y >= 0;
+			yStart = y1 - getY() - 1;
 		} else {
 			throw new RuntimeException("Internal error, bullet is moving neither up nor down ??");
 		}
@@ -77,30 +172,126 @@ public final class Barricade extends Entity {
 		// clear pixels that were hit
 		boolean pixelsHit=false;
 
-		final int xStart = intersection.x - position.x;
-		final int xEnd = intersection.x + intersection.width - position.x;
+		final int xStart = x0 - getX();
+		final int xEnd = x1 - getX(); // exclusive
+		final int firstWord = xStart / 64;
+		final int lastWord = ( xEnd - 1 ) / 64;
 
 		int rowsRemoved = 0;
-		for ( int y = yStart ; condition.apply(y) & rowsRemoved < 3 ; y += yIncrement )
+		int pixelsCleared = 0;
+		for ( int y = yStart ; y >= 0 && y < height && rowsRemoved < 3 ; y += yIncrement )
 		{
-			for ( int x = xStart ; x < xEnd ; x++ )
+			final int offset = y*wordsPerRow;
+			for ( int word = firstWord ; word <= lastWord ; word++ )
 			{
-				final int rgb = sprite.getRGB( x ,y ) & 0x00ffffff; // ignore alpha channel
-				if ( rgb != 0 ) {
+				final long bits = mask[ offset+word ] & columnMask( word , xStart , xEnd );
+				if ( bits != 0 )
+				{
 					pixelsHit=true; // stop deleting pixels after finishing this row, we'll only remove the top-most/bottom-most row of pixels on each hit
-					sprite.setRGB( x , y , 0 );
+					mask[ offset+word ] &= ~bits;
+					pixelsCleared += Long.bitCount( bits );
 				}
 			}
+			if ( pixelsHit )
+			{
+				dirtyX0 = Math.min( dirtyX0 , xStart );
+				dirtyX1 = Math.max( dirtyX1 , xEnd - 1 );
+				dirtyY0 = Math.min( dirtyY0 , y );
+				dirtyY1 = Math.max( dirtyY1 , y );
+			}
 			if ( pixelsHit ) {
 				rowsRemoved++;
 			}
 		}
+
+		if ( event != null )
+		{
+			event.end();
+			if ( event.shouldCommit() )
+			{
+				event.pixelsCleared = pixelsCleared;
+				event.movingUp = entity.isMovingUp();
+				event.commit();
+			}
+		}
 		return pixelsHit;
 	}
 
+	/*
+	 * Returns the bits of the given mask word that correspond to columns xStart (inclusive) to xEnd (exclusive).
+	 */
+	private static long columnMask(int word,int xStart,int xEnd)
+	{
+		final int from = Math.max( xStart - word*64 , 0 );
+		final int to = Math.min( xEnd - word*64 , 64 );
+		final long upper = to == 64 ? -1L : ( 1L << to ) - 1;
+		return upper & ( -1L << from );
+	}
+
+	/**
+	 * Returns whether a pixel of this barricade is still intact.
+	 *
+	 * @param x X coordinate relative to the barricade's top-left corner
+	 * @param y Y coordinate relative to the barricade's top-left corner
+	 * @return
+	 */
+	public boolean isIntact(int x,int y) {
+		return ( mask[ y*wordsPerRow + x/64 ] & ( 1L << ( x & 63 ) ) ) != 0;
+	}
+
+	/*
+	 * Clear pixels in the image that got destroyed since the last call.
+	 */
+	private void updateImage()
+	{
+		if ( image == pristineImage )
+		{
+			// first damage since creation/repair, switch to private copy
+			if ( privateCopy == null ) {
+				privateCopy = pristineImage.createCopy();
+			} else {
+				copyPixels( pristineImage , privateCopy , 0 , 0 , width , height );
+			}
+			image = privateCopy;
+		}
+
+		final int w = dirtyX1 - dirtyX0 + 1;
+		final int h = dirtyY1 - dirtyY0 + 1;
+		if ( pixels == null || pixels.length < w*h ) {
+			pixels = new int[ width*height ];
+		}
+		image.getRGB( dirtyX0 , dirtyY0 , w , h , pixels , 0 , w );
+		for ( int y = 0 , ptr = 0 ; y < h ; y++ )
+		{
+			final int offset = ( dirtyY0 + y ) * wordsPerRow;
+			for ( int x = 0 ; x < w ; x++ , ptr++ )
+			{
+				final int word = offset + ( dirtyX0 + x ) / 64;
+				final long bit = 1L << ( ( dirtyX0 + x ) & 63 );
+				if ( ( pristineMask[word] & ~mask[word] & bit ) != 0 ) {
+					pixels[ptr] = 0;
+				}
+			}
+		}
+		image.setRGB( dirtyX0 , dirtyY0 , w , h , pixels , 0 , w );
+		clearDirtyRect();
+	}
+
+	private void copyPixels(ImageHolder source,ImageHolder destination,int x,int y,int w,int h)
+	{
+		if ( pixels == null || pixels.length < w*h ) {
+			pixels = new int[ width*height ];
+		}
+		source.getRGB( x , y , w , h , pixels , 0 , w );
+		destination.setRGB( x , y , w , h , pixels , 0 , w );
+	}
+
 	@Override
-	public void render(IRenderer graphics)
+	public void render(IRenderer graphics,float alpha)
 	{
-		graphics.renderImage( sprite , position.x ,position.y );
+		if ( isDirty() ) {
+			updateImage();
+		}
+		graphics.renderImage( image , getX() ,getY() );
 	}
-}
\ No newline at end of file
+}
@@ -20,27 +20,76 @@ import de.codesourcery.jinvaders.graphics.Vec2d;
 
 public final class Bullet extends SpriteHoldingEntity
 {
-	public final Entity owner;
+	// the entity that fired this bullet, referenced by handle so bullets
+	// neither keep their owner alive nor can reach it after it has been removed
+	private EntityStore ownerStore;
+	private long ownerHandle;
+	private EntityType ownerType;
+
+	// pool this bullet returns to when disposed, NULL if not pooled
+	BulletPool pool;
+	private boolean disposed;
 
 	public Bullet(Vec2d position,Vec2d velocity,Entity owner,Sprite sprite) {
-		super(position,velocity, sprite);
+		super(EntityType.BULLET,position,velocity, sprite);
+		setOwner( owner );
+	}
+
+	private void setOwner(Entity owner)
+	{
 		if ( owner == null ) {
 			throw new IllegalArgumentException("owner must not be NULL");
 		}
-		this.owner = owner;
+		this.ownerStore = owner.getStore();
+		this.ownerHandle = owner.getHandle();
+		this.ownerType = owner.getType();
+	}
+
+	/**
+	 * Re-initialize a pooled bullet.
+	 *
+	 * @see BulletPool#acquire(int, int, int, int, Entity, Sprite)
+	 */
+	void reset(int x,int y,int velocityX,int velocityY,Entity owner,Sprite sprite)
+	{
+		reset( x , y , velocityX , velocityY , sprite.size().width() , sprite.size().height() );
+		setSprite( sprite );
+		setOwner( owner );
+		disposed = false;
+	}
+
+	/**
+	 * Returns the entity that fired this bullet.
+	 *
+	 * @return owner or <code>null</code> if the owner has been removed from its {@link EntityStore} (or never was part of one)
+	 */
+	public Entity getOwner() {
+		return ownerStore == null ? null : ownerStore.resolve( ownerHandle );
 	}
 
 	@Override
 	public void onDispose()
 	{
+		if ( disposed ) { // bullet may have left the screen and hit something during the same tick
+			return;
+		}
+		disposed = true;
+
 		super.onDispose();
-		if ( isShotByPlayer() ) {
-			((Player) owner).playerBulletsInFlight--;
+		if ( isShotByPlayer() )
+		{
+			final Entity owner = getOwner();
+			if ( owner != null ) {
+				((Player) owner).playerBulletsInFlight--;
+			}
+		}
+		if ( pool != null ) {
+			pool.release( this );
 		}
 	}
 
 	public boolean isShotByPlayer() {
-		return owner.isPlayer();
+		return ownerType == EntityType.PLAYER;
 	}
 
 	@Override
@@ -50,10 +99,10 @@ public final class Bullet extends SpriteHoldingEntity
 			return false;
 		}
 		// prevent invaders from being killed by their collegues
-		// slightly hackish but Invaders#noInvaderBelow() check does
+		// slightly hackish but Invaders#mayFire() check does
 		// prevent invaders below and slightly to the left/right of the firing one
 		// to be hit when they move left/right on the next tick
-		if ( other.isInvader() && owner.isInvader() ) {
+		if ( other.isInvader() && ownerType == EntityType.INVADER ) {
 			return false;
 		}
 		return super.collides(other);
@@ -61,6 +110,6 @@ public final class Bullet extends SpriteHoldingEntity
 
 	@Override
 	public String toString() {
-		return "Bullet( shot by: "+owner+" , pos: "+position+")";
+		return "Bullet( shot by: "+ownerType+" , pos: ( "+getX()+" , "+getY()+" ) )";
 	}
 }
\ No newline at end of file
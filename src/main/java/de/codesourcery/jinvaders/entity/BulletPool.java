@@ -0,0 +1,112 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.util.Arrays;
+
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+/**
+ * Pool of {@link Bullet} instances.
+ *
+ * Bullets obtained through {@link #acquire(int, int, int, int, Entity, Sprite)} return themselves to the
+ * pool when {@link Bullet#onDispose()} is invoked and get completely re-initialized when
+ * they are handed out again, so once the pool has grown to the number of bullets in flight firing
+ * does not allocate any more objects.
+ *
+ * Not thread-safe, each game has its own pool.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class BulletPool
+{
+	private Bullet[] free;
+	private int freeCount;
+
+	// statistics
+	private int created;
+
+	public BulletPool() {
+		this(16);
+	}
+
+	public BulletPool(int initialCapacity)
+	{
+		if ( initialCapacity < 1 ) {
+			throw new IllegalArgumentException("Initial capacity must be >= 1");
+		}
+		free = new Bullet[ initialCapacity ];
+	}
+
+	/**
+	 * Get a bullet from the pool (or create a new one if the pool is empty).
+	 *
+	 * @param x
+	 * @param y
+	 * @param velocityX
+	 * @param velocityY
+	 * @param owner entity that fired the bullet
+	 * @param sprite
+	 * @return bullet that is not part of any store yet
+	 */
+	public Bullet acquire(int x,int y,int velocityX,int velocityY,Entity owner,Sprite sprite)
+	{
+		final Bullet result;
+		if ( freeCount > 0 )
+		{
+			result = free[ --freeCount ];
+			free[ freeCount ] = null;
+		} else {
+			result = new Bullet( Vec2d.ZERO , Vec2d.ZERO , owner , sprite );
+			result.pool = this;
+			created++;
+		}
+		result.reset( x , y , velocityX , velocityY , owner , sprite );
+		return result;
+	}
+
+	/**
+	 * Invoked by {@link Bullet#onDispose()}.
+	 *
+	 * @param bullet
+	 */
+	void release(Bullet bullet)
+	{
+		if ( freeCount == free.length ) {
+			free = Arrays.copyOf( free , free.length * 2 );
+		}
+		free[ freeCount++ ] = bullet;
+	}
+
+	/**
+	 * Returns the number of bullets that are currently available for re-use.
+	 *
+	 * @return
+	 */
+	public int getAvailableCount() {
+		return freeCount;
+	}
+
+	/**
+	 * Returns the total number of bullets this pool has created so far.
+	 *
+	 * @return
+	 */
+	public int getCreatedCount() {
+		return created;
+	}
+}
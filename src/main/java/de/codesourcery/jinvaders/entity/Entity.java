@@ -24,25 +24,206 @@ import de.codesourcery.jinvaders.graphics.Vec2d;
 
 public abstract class Entity implements ITickListener, Comparable<Entity>
 {
-	public final Vec2d position;
-	public final Vec2d velocity;
-	public final Vec2d size;
+	private static final EntityState[] STATES = EntityState.values();
 
-	private EntityState state=EntityState.ALIVE;
+	private final EntityType type;
+
+	// store and slot holding this entity's data, NULL/-1 if the entity is not part of a store
+	EntityStore store;
+	int index = -1;
+	// handle assigned when the entity was last added to a store
+	long handle = EntityStore.NULL_HANDLE;
+
+	// this entity's data while it is not part of a store
+	int localX;
+	int localY;
+	// position at the start of the current simulation tick,
+	// used to interpolate between two simulation states when rendering
+	int localPrevX;
+	int localPrevY;
+	int localVelX;
+	int localVelY;
+	int localWidth;
+	int localHeight;
+	EntityState localState=EntityState.ALIVE;
 
 	public Entity(Vec2d position,Vec2d velocity,Vec2d size)
 	{
-		this.velocity = new Vec2d(velocity);
-		this.position = new Vec2d(position);
-		this.size = new Vec2d(size);
+		this(EntityType.OTHER,position,velocity,size);
+	}
+
+	protected Entity(EntityType type,Vec2d position,Vec2d velocity,Vec2d size)
+	{
+		this.type = type;
+		this.localX = this.localPrevX = position.x;
+		this.localY = this.localPrevY = position.y;
+		this.localVelX = velocity.x;
+		this.localVelY = velocity.y;
+		this.localWidth = size.width();
+		this.localHeight = size.height();
+	}
+
+	/**
+	 * Invoked by {@link EntityStore} when this entity gets removed,
+	 * copies the entity's data from the store.
+	 */
+	final void detach()
+	{
+		final EntityStore s = store;
+		final int i = index;
+		localX = s.posX[i];
+		localY = s.posY[i];
+		localPrevX = s.prevX[i];
+		localPrevY = s.prevY[i];
+		localVelX = s.velX[i];
+		localVelY = s.velY[i];
+		localWidth = s.width[i];
+		localHeight = s.height[i];
+		localState = STATES[ s.state[i] ];
+		store = null;
+		index = -1;
+	}
+
+	/**
+	 * Re-initialize an entity that is not part of a store so it can be re-used.
+	 */
+	final void reset(int x,int y,int velocityX,int velocityY,int width,int height)
+	{
+		if ( store != null ) {
+			throw new IllegalStateException("Entity is still part of a store: "+this);
+		}
+		localX = localPrevX = x;
+		localY = localPrevY = y;
+		localVelX = velocityX;
+		localVelY = velocityY;
+		localWidth = width;
+		localHeight = height;
+		localState = EntityState.ALIVE;
+	}
+
+	public final EntityType getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the handle this entity can be looked up by in its {@link EntityStore}.
+	 *
+	 * The handle becomes stale once the entity is removed from the store, adding the entity again
+	 * assigns a new handle.
+	 *
+	 * @return handle or {@link EntityStore#NULL_HANDLE} if this entity has never been part of a store
+	 * @see EntityStore#resolve(long)
+	 */
+	public final long getHandle() {
+		return handle;
+	}
+
+	/**
+	 * Returns the store this entity is part of.
+	 *
+	 * @return store or <code>null</code>
+	 */
+	public final EntityStore getStore() {
+		return store;
+	}
+
+	public final int getX() { return store == null ? localX : store.posX[index]; }
+	public final int getY() { return store == null ? localY : store.posY[index]; }
+
+	public final void setPosition(int x,int y)
+	{
+		if ( store == null ) {
+			localX = x;
+			localY = y;
+		} else {
+			store.posX[index] = x;
+			store.posY[index] = y;
+		}
+	}
+
+	public final void translate(int dx,int dy)
+	{
+		if ( store == null ) {
+			localX += dx;
+			localY += dy;
+		} else {
+			store.posX[index] += dx;
+			store.posY[index] += dy;
+		}
+	}
+
+	public final int getVelocityX() { return store == null ? localVelX : store.velX[index]; }
+	public final int getVelocityY() { return store == null ? localVelY : store.velY[index]; }
+
+	public final void setVelocity(int vx,int vy)
+	{
+		if ( store == null ) {
+			localVelX = vx;
+			localVelY = vy;
+		} else {
+			store.velX[index] = vx;
+			store.velY[index] = vy;
+		}
+	}
+
+	public final int getWidth() { return store == null ? localWidth : store.width[index]; }
+	public final int getHeight() { return store == null ? localHeight : store.height[index]; }
+
+	private int getPreviousX() { return store == null ? localPrevX : store.prevX[index]; }
+	private int getPreviousY() { return store == null ? localPrevY : store.prevY[index]; }
+
+	private EntityState getState() { return store == null ? localState : STATES[ store.state[index] ]; }
+
+	/**
+	 * Remember the current position as the starting point for render interpolation.
+	 *
+	 * Invoked once at the start of each simulation tick (through {@link EntityStore#savePositions()}
+	 * for entities that are part of a store).
+	 */
+	public void savePosition()
+	{
+		if ( store == null ) {
+			localPrevX = localX;
+			localPrevY = localY;
+		} else {
+			store.prevX[index] = store.posX[index];
+			store.prevY[index] = store.posY[index];
+		}
+	}
+
+	/**
+	 * Returns the X coordinate to render this entity at.
+	 *
+	 * @param alpha fraction of a simulation tick (0...1) that has elapsed since the last tick
+	 * @return
+	 */
+	public int interpolatedX(float alpha) {
+		final int previousX = getPreviousX();
+		return previousX + Math.round( ( getX() - previousX ) * alpha );
+	}
+
+	/**
+	 * Returns the Y coordinate to render this entity at.
+	 *
+	 * @param alpha fraction of a simulation tick (0...1) that has elapsed since the last tick
+	 * @return
+	 */
+	public int interpolatedY(float alpha) {
+		final int previousY = getPreviousY();
+		return previousY + Math.round( ( getY() - previousY ) * alpha );
 	}
 
 	public void setState(EntityState newState)
 	{
-		if ( ! this.state.canTransitionTo( newState ) ) {
-			throw new IllegalStateException("Invalid state transition for entity "+this+": "+this.state+" -> "+newState);
+		final EntityState state = getState();
+		if ( ! state.canTransitionTo( newState ) ) {
+			throw new IllegalStateException("Invalid state transition for entity "+this+": "+state+" -> "+newState);
+		}
+		if ( store == null ) {
+			localState = newState;
+		} else {
+			store.state[index] = (byte) newState.ordinal();
 		}
-		this.state = newState;
 	}
 
 	public void onDispose() {
@@ -51,28 +232,28 @@ public abstract class Entity implements ITickListener, Comparable<Entity>
 	public void onHit(ITickContext ctd) {
 	}
 
-	public boolean isAlive() { return state == EntityState.ALIVE; }
+	public boolean isAlive() { return getState() == EntityState.ALIVE; }
 
-	public boolean isDying() { return state == EntityState.DYING; }
+	public boolean isDying() { return getState() == EntityState.DYING; }
 
-	public boolean isDead() { return state == EntityState.DEAD; }
+	public boolean isDead() { return getState() == EntityState.DEAD; }
 
 	@Override
-	public String toString() { return getClass().getName()+" @ "+position; }
+	public String toString() { return getClass().getName()+" @ ( "+getX()+" , "+getY()+" )"; }
 
-	public boolean isInvader() { return this instanceof Invader; }
-	public boolean isPlayer() { return this instanceof Player; }
-	public boolean isBullet() { return this instanceof Bullet; }
+	public boolean isInvader() { return type == EntityType.INVADER; }
+	public boolean isPlayer() { return type == EntityType.PLAYER; }
+	public boolean isBullet() { return type == EntityType.BULLET; }
 
 	public boolean isOffScreen(Rectangle r) {
 		return bottom() < r.y || top() > r.y+r.height|| right() < r.x || left() > r.x+r.width;
 	}
 
-	public void stop() { velocity.set(0,0); }
-	public int left() { return position.x; }
-	public int right() { return position.x+size.width(); }
-	public int top() { return position.y; }
-	public int bottom() { return position.y+size.height(); }
+	public void stop() { setVelocity(0,0); }
+	public int left() { return getX(); }
+	public int right() { return getX()+getWidth(); }
+	public int top() { return getY(); }
+	public int bottom() { return getY()+getHeight(); }
 
 	public boolean isAbove(int y) { return bottom() < y; }
 	public boolean isBelow(int y) { return top() > y; }
@@ -84,10 +265,18 @@ public abstract class Entity implements ITickListener, Comparable<Entity>
 	public boolean isLeftOf(Entity e) { return isLeftOf( e.left() ); }
 	public boolean isRightOf(Entity e) { return isRightOf( e.right() ); }
 
-	public boolean isMovingUp() { return velocity.y < 0; }
-	public boolean isMovingDown() { return velocity.y > 0; }
+	public boolean isMovingUp() { return getVelocityY() < 0; }
+	public boolean isMovingDown() { return getVelocityY() > 0; }
 
-	public boolean collidesWith(Collection<Entity> others) { return others.stream().anyMatch( this::collides ); }
+	public boolean collidesWith(Collection<Entity> others)
+	{
+		for ( final Entity other : others ) {
+			if ( collides( other ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
 
 	public boolean canCollide() { return isAlive(); }
 
@@ -98,12 +287,17 @@ public abstract class Entity implements ITickListener, Comparable<Entity>
 			other.canCollide() &&
 			!(isAbove(other) || isBelow(other) || isLeftOf(other) || isRightOf(other ) ); }
 
-	public void moveLeft(int vx) { this.velocity.x = -vx; };
-	public void moveRight(int vx) { this.velocity.x = vx; };
+	public void moveLeft(int vx) { setVelocity( -vx , getVelocityY() ); };
+	public void moveRight(int vx) { setVelocity( vx , getVelocityY() ); };
 
+	/**
+	 * Advance this entity by one simulation tick.
+	 *
+	 * Note that entities that are part of an {@link EntityStore} get moved by their velocity
+	 * by {@link EntityStore#integrate()}, this method only needs to take care of everything else.
+	 */
 	@Override
 	public void tick(ITickContext context) {
-		position.add( velocity );
 	}
 
 	/**
@@ -128,5 +322,12 @@ public abstract class Entity implements ITickListener, Comparable<Entity>
 		return 0;
 	}
 
-	public abstract void render(IRenderer graphics);
+	/**
+	 * Render this entity.
+	 *
+	 * @param graphics
+	 * @param alpha fraction of a simulation tick (0...1) that has elapsed since the last tick,
+	 * used to interpolate the entity's position
+	 */
+	public abstract void render(IRenderer graphics,float alpha);
 }
\ No newline at end of file
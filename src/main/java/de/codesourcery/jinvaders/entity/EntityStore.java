@@ -0,0 +1,416 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.awt.Rectangle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the per-entity simulation data (position, velocity, size, state and type)
+ * in parallel arrays so that operations touching all entities are linear
+ * sweeps over primitive arrays.
+ *
+ * Entities are addressed by a dense index (0...size-1), removing an entity moves the last
+ * entity into the gap (so the order of entities changes when entities get removed).
+ * {@link Entity} instances act as views on their slot while they are part of a store, see {@link Entity#getX()} etc.
+ *
+ * Since dense indices change, entities can be referenced by generational handles ({@link Entity#getHandle()}) that
+ * stay valid until the entity gets removed. Handles point to a slot in a slot map (which holds the entity's current dense index)
+ * and carry the slot's generation, which is incremented each time the slot is freed so that stale handles
+ * can be detected in O(1), see {@link #resolve(long)}. Freed slots are kept in a free list and re-used.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class EntityStore
+{
+	private static final byte DEAD = (byte) EntityState.DEAD.ordinal();
+
+	/**
+	 * Handle that never refers to an entity.
+	 */
+	public static final long NULL_HANDLE = 0;
+
+	int[] posX;
+	int[] posY;
+	int[] prevX;
+	int[] prevY;
+	int[] velX;
+	int[] velY;
+	int[] width;
+	int[] height;
+	byte[] state;
+	byte[] type;
+	private Entity[] entities;
+	// slot of each entity
+	private int[] slot;
+
+	private int size;
+
+	// slot map: dense index of the entity in each slot (or the next free slot if the slot is unused)
+	// and the slot's generation (starting at 1 so NULL_HANDLE never matches)
+	private int[] slotIndex;
+	private int[] slotGeneration;
+	private int slotCount;
+	private int firstFreeSlot = -1;
+
+	// whether tick() is currently iterating over the entities
+	private boolean ticking;
+
+	private final List<Entity> view = new AbstractList<Entity>()
+	{
+		@Override
+		public Entity get(int index) {
+			return EntityStore.this.get( index );
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	};
+
+	public EntityStore() {
+		this(64);
+	}
+
+	public EntityStore(int initialCapacity)
+	{
+		if ( initialCapacity < 1 ) {
+			throw new IllegalArgumentException("Initial capacity must be >= 1");
+		}
+		posX = new int[ initialCapacity ];
+		posY = new int[ initialCapacity ];
+		prevX = new int[ initialCapacity ];
+		prevY = new int[ initialCapacity ];
+		velX = new int[ initialCapacity ];
+		velY = new int[ initialCapacity ];
+		width = new int[ initialCapacity ];
+		height = new int[ initialCapacity ];
+		state = new byte[ initialCapacity ];
+		type = new byte[ initialCapacity ];
+		entities = new Entity[ initialCapacity ];
+		slot = new int[ initialCapacity ];
+		slotIndex = new int[ initialCapacity ];
+		slotGeneration = new int[ initialCapacity ];
+	}
+
+	/**
+	 * Add an entity.
+	 *
+	 * @param entity entity, must not be part of any store
+	 */
+	public void add(Entity entity)
+	{
+		if ( entity == null ) {
+			throw new IllegalArgumentException("entity must not be NULL");
+		}
+		if ( entity.store != null ) {
+			throw new IllegalArgumentException("Entity is already part of a store: "+entity);
+		}
+		assertNotTicking();
+		if ( size == entities.length ) {
+			grow();
+		}
+		final int index = size++;
+		posX[index] = entity.localX;
+		posY[index] = entity.localY;
+		prevX[index] = entity.localPrevX;
+		prevY[index] = entity.localPrevY;
+		velX[index] = entity.localVelX;
+		velY[index] = entity.localVelY;
+		width[index] = entity.localWidth;
+		height[index] = entity.localHeight;
+		state[index] = (byte) entity.localState.ordinal();
+		type[index] = (byte) entity.getType().ordinal();
+		entities[index] = entity;
+
+		final int s;
+		if ( firstFreeSlot != -1 ) {
+			s = firstFreeSlot;
+			firstFreeSlot = slotIndex[s];
+		} else {
+			s = slotCount++;
+			slotGeneration[s] = 1;
+		}
+		slotIndex[s] = index;
+		slot[index] = s;
+
+		entity.store = this;
+		entity.index = index;
+		entity.handle = ( (long) slotGeneration[s] << 32 ) | s;
+	}
+
+	private void grow()
+	{
+		final int newCapacity = entities.length * 2;
+		posX = Arrays.copyOf( posX , newCapacity );
+		posY = Arrays.copyOf( posY , newCapacity );
+		prevX = Arrays.copyOf( prevX , newCapacity );
+		prevY = Arrays.copyOf( prevY , newCapacity );
+		velX = Arrays.copyOf( velX , newCapacity );
+		velY = Arrays.copyOf( velY , newCapacity );
+		width = Arrays.copyOf( width , newCapacity );
+		height = Arrays.copyOf( height , newCapacity );
+		state = Arrays.copyOf( state , newCapacity );
+		type = Arrays.copyOf( type , newCapacity );
+		entities = Arrays.copyOf( entities , newCapacity );
+		slot = Arrays.copyOf( slot , newCapacity );
+		// there are never more slots than entities
+		slotIndex = Arrays.copyOf( slotIndex , newCapacity );
+		slotGeneration = Arrays.copyOf( slotGeneration , newCapacity );
+	}
+
+	private void freeSlot(int s)
+	{
+		if ( ++slotGeneration[s] == 0 ) { // wrapped around
+			slotGeneration[s] = 1;
+		}
+		slotIndex[s] = firstFreeSlot;
+		firstFreeSlot = s;
+	}
+
+	/**
+	 * Look up an entity by handle.
+	 *
+	 * @param handle
+	 * @return the entity or <code>null</code> if the handle is stale (the entity has been removed since the handle was obtained)
+	 * @see Entity#getHandle()
+	 */
+	public Entity resolve(long handle)
+	{
+		final int s = (int) handle;
+		final int generation = (int) ( handle >>> 32 );
+		if ( s < 0 || s >= slotCount || generation == 0 || slotGeneration[s] != generation ) {
+			return null;
+		}
+		return entities[ slotIndex[s] ];
+	}
+
+	/**
+	 * Returns whether a handle refers to an entity that is (still) part of this store.
+	 *
+	 * @param handle
+	 * @return
+	 */
+	public boolean isValid(long handle) {
+		return resolve( handle ) != null;
+	}
+
+	/**
+	 * Remove an entity.
+	 *
+	 * @param entity
+	 * @return <code>false</code> if the entity was not part of this store
+	 */
+	public boolean remove(Entity entity)
+	{
+		if ( entity.store != this ) {
+			return false;
+		}
+		removeAt( entity.index );
+		return true;
+	}
+
+	private void removeAt(int index)
+	{
+		assertNotTicking();
+		final Entity removed = entities[index];
+		removed.detach();
+		freeSlot( slot[index] );
+
+		final int last = --size;
+		if ( index != last )
+		{
+			posX[index] = posX[last];
+			posY[index] = posY[last];
+			prevX[index] = prevX[last];
+			prevY[index] = prevY[last];
+			velX[index] = velX[last];
+			velY[index] = velY[last];
+			width[index] = width[last];
+			height[index] = height[last];
+			state[index] = state[last];
+			type[index] = type[last];
+			entities[index] = entities[last];
+			entities[index].index = index;
+			slot[index] = slot[last];
+			slotIndex[ slot[index] ] = index;
+		}
+		entities[last] = null;
+	}
+
+	/**
+	 * Remove all entities (without invoking {@link Entity#onDispose()}).
+	 */
+	public void clear()
+	{
+		for ( int i = 0 ; i < size ; i++ ) {
+			entities[i].detach();
+			entities[i] = null;
+			freeSlot( slot[i] );
+		}
+		size = 0;
+	}
+
+	/**
+	 * Remove all entities in state {@link EntityState#DEAD} and invoke {@link Entity#onDispose()} on them.
+	 */
+	public void removeDead()
+	{
+		// iterate backwards so entities moved into the gap have already been looked at
+		for ( int i = size-1 ; i >= 0 ; i-- )
+		{
+			if ( state[i] == DEAD )
+			{
+				final Entity entity = entities[i];
+				removeAt( i );
+				entity.onDispose();
+			}
+		}
+	}
+
+	/**
+	 * Remember the current positions as the starting point for render interpolation.
+	 *
+	 * @see Entity#savePosition()
+	 */
+	public void savePositions()
+	{
+		System.arraycopy( posX , 0 , prevX , 0 , size );
+		System.arraycopy( posY , 0 , prevY , 0 , size );
+	}
+
+	/**
+	 * Move all entities by their current velocity.
+	 */
+	public void integrate()
+	{
+		final int len = size;
+		final int[] px = posX;
+		final int[] py = posY;
+		final int[] vx = velX;
+		final int[] vy = velY;
+		for ( int i = 0 ; i < len ; i++ )
+		{
+			px[i] += vx[i];
+			py[i] += vy[i];
+		}
+	}
+
+	/**
+	 * Invoke {@link Entity#tick(ITickContext)} on all entities.
+	 *
+	 * Entities must not be added or removed while being ticked, the tick context
+	 * is expected to defer these changes until this method returns.
+	 *
+	 * @param context
+	 * @throws IllegalStateException if an entity got added or removed while ticking
+	 */
+	public void tick(ITickContext context)
+	{
+		ticking = true;
+		try
+		{
+			final Entity[] entities = this.entities;
+			for ( int i = 0 , len = size ; i < len ; i++ ) {
+				entities[i].tick( context );
+			}
+		} finally {
+			ticking = false;
+		}
+	}
+
+	private void assertNotTicking()
+	{
+		if ( ticking ) {
+			throw new IllegalStateException("Entities must not be added or removed while entities are being ticked");
+		}
+	}
+
+	/**
+	 * Find entities that are outside of a rectangle and should be destroyed because of this.
+	 *
+	 * @param r
+	 * @param result list the entities are added to
+	 * @see Entity#isOffScreen(Rectangle)
+	 * @see Entity#destroyWhenOffScreen()
+	 */
+	public void findOffScreen(Rectangle r,List<Entity> result)
+	{
+		final int minX = r.x;
+		final int maxX = r.x + r.width;
+		final int minY = r.y;
+		final int maxY = r.y + r.height;
+		for ( int i = 0 , len = size ; i < len ; i++ )
+		{
+			final int x = posX[i];
+			final int y = posY[i];
+			if ( y + height[i] < minY || y > maxY || x + width[i] < minX || x > maxX )
+			{
+				if ( entities[i].destroyWhenOffScreen() ) {
+					result.add( entities[i] );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entities of a given type.
+	 *
+	 * @param entityType
+	 * @return
+	 */
+	public int count(EntityType entityType)
+	{
+		final byte tag = (byte) entityType.ordinal();
+		int result = 0;
+		for ( int i = 0 , len = size ; i < len ; i++ ) {
+			if ( type[i] == tag ) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	public Entity get(int index)
+	{
+		if ( index < 0 || index >= size ) {
+			throw new IndexOutOfBoundsException("Index "+index+" out of range, size: "+size);
+		}
+		return entities[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns a read-only view of the entities in this store.
+	 *
+	 * The view reflects changes made to this store, iteration order is the order of entity indices.
+	 *
+	 * @return
+	 */
+	public List<Entity> asList() {
+		return view;
+	}
+}
@@ -16,25 +16,66 @@
 package de.codesourcery.jinvaders.entity;
 
 import java.util.List;
+import java.util.SplittableRandom;
 
 import de.codesourcery.jinvaders.ITickListener;
 import de.codesourcery.jinvaders.graphics.Sprite;
 import de.codesourcery.jinvaders.graphics.SpriteKey;
+import de.codesourcery.jinvaders.sound.SoundEffect;
 
 public abstract class ITickContext
 {
 	public abstract float getElapsedTimeInSeconds();
 
+	/**
+	 * Register a tick listener.
+	 *
+	 * The listener may only get registered after the current phase of the tick has completed.
+	 *
+	 * @param listener
+	 */
 	public abstract void addTickListener(ITickListener listener);
 
+	/**
+	 * Unregister a tick listener.
+	 *
+	 * The listener may still get ticked until the current phase of the tick has completed.
+	 *
+	 * @param listener
+	 */
 	public abstract void removeTickListener(ITickListener listener);
 
 	public abstract List<Entity> getNonStaticEntities();
 
+	/**
+	 * Add a new entity.
+	 *
+	 * The entity may only get added after the current phase of the tick has completed,
+	 * entities spawned while entities are being ticked get ticked for the first time during the next tick.
+	 *
+	 * @param e
+	 */
 	public abstract void addNewEntity(Entity e);
 
+	/**
+	 * Remove an entity and dispose it.
+	 *
+	 * The entity may only get removed after the current phase of the tick has completed.
+	 *
+	 * @param e
+	 */
 	public abstract void destroyEntity(Entity e);
 
+	/**
+	 * Returns the pool new bullets should be taken from.
+	 *
+	 * Bullets obtained from the pool need to be added through {@link #addNewEntity(Entity)}
+	 * and go back to the pool when they are disposed.
+	 *
+	 * @return
+	 */
+	public abstract BulletPool getBulletPool();
+
 	/**
 	 *
 	 * @return
@@ -44,4 +85,16 @@ public abstract class ITickContext
 	public abstract int getCurrentTick(); // FIXME: REMOVE METHOD
 
 	public abstract Sprite getSprite(SpriteKey sprite);
+
+	public abstract void playSound(SoundEffect effect);
+
+	/**
+	 * Returns the game's source of randomness.
+	 *
+	 * All randomness that affects gameplay must come from here, otherwise
+	 * game sessions can no longer be replayed.
+	 *
+	 * @return
+	 */
+	public abstract SplittableRandom getRandom();
 }
\ No newline at end of file
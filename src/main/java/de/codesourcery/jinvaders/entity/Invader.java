@@ -15,8 +15,6 @@
  */
 package de.codesourcery.jinvaders.entity;
 
-import java.util.Random;
-
 import de.codesourcery.jinvaders.Constants;
 import de.codesourcery.jinvaders.graphics.Sprite;
 import de.codesourcery.jinvaders.graphics.SpriteImpl;
@@ -25,24 +23,61 @@ import de.codesourcery.jinvaders.sound.SoundEffect;
 
 public final class Invader extends SpriteHoldingEntity
 {
-	protected static final Random random = new Random(System.currentTimeMillis());
+	// formation this invader is part of (if any) and its position in it
+	final InvaderFormation formation;
+	final int column;
+	final int row;
 
 	public Invader(Vec2d position,Vec2d velocity,Sprite sprite) {
-		super(position,velocity, sprite );
+		super(EntityType.INVADER,position,velocity, sprite );
+		this.formation = null;
+		this.column = -1;
+		this.row = -1;
+	}
+
+	/**
+	 * Create an invader that is part of a formation and moves with it.
+	 *
+	 * The invader itself has no velocity, it gets moved by {@link InvaderFormation#move(int)}.
+	 *
+	 * @see InvaderFormation#spawn(Vec2d, Sprite, int, int)
+	 */
+	Invader(Vec2d position,Sprite sprite,InvaderFormation formation,int column,int row)
+	{
+		super(EntityType.INVADER,position,Vec2d.ZERO, sprite );
+		this.formation = formation;
+		this.column = column;
+		this.row = row;
+	}
+
+	@Override
+	public void onDispose()
+	{
+		super.onDispose();
+		if ( formation != null ) {
+			formation.invaderRemoved( this );
+		}
 	}
 
 	@Override
 	public void onHit(ITickContext ctx)
 	{
 		setState( EntityState.DYING );
+		if ( formation != null ) {
+			formation.invaderDestroyed( this );
+		}
 		flash(ctx, 30 , () -> setState(EntityState.DEAD ) );
 	}
 
+	public InvaderFormation getFormation() {
+		return formation;
+	}
+
 	@Override
 	public boolean collides(Entity other)
 	{
 		// prevent invaders from being killed by their collegues
-		// slightly hackish but Invaders#noInvaderBelow() check does
+		// slightly hackish but Invaders#mayFire() check does
 		// prevent invaders below and slightly to the left/right of the firing one
 		// to be hit when they move left/right on the next tick
 		if ( other.isBullet() && ! ( (Bullet) other).isShotByPlayer() )  {
@@ -55,17 +90,20 @@ public final class Invader extends SpriteHoldingEntity
 	public void tick(ITickContext ctx)
 	{
 		super.tick(ctx);
-		if ( noOtherInvaderBelow( ctx ) && random.nextFloat() > Constants.INVADER_FIRING_PROBABILITY )
+		if ( mayFire( ctx ) && ctx.getRandom().nextDouble() > Constants.INVADER_FIRING_PROBABILITY )
 		{
-			final Vec2d initialPos = new Vec2d( position.x , position.y + 5 + size.height() );
-			final Vec2d initialVelocity = new Vec2d( 0 , Constants.INVADER_BULLET_VELOCITY );
-
-			final Bullet bullet = new Bullet(initialPos,initialVelocity,this,ctx.getSprite(SpriteImpl.INVADER_BULLET ) );
+			final Bullet bullet = ctx.getBulletPool().acquire( getX() , getY() + 5 + getHeight() , 0 , Constants.INVADER_BULLET_VELOCITY , this , ctx.getSprite(SpriteImpl.INVADER_BULLET ) );
 			ctx.addNewEntity( bullet );
-			SoundEffect.INVADER_SHOOTING.play();
+			ctx.playSound( SoundEffect.INVADER_SHOOTING );
 		}
 	}
 
+	private boolean mayFire(ITickContext ctx)
+	{
+		// only the bottom-most invader of a column may fire so invaders don't shoot their collegues
+		return formation != null ? formation.isBottomMost( this ) : noOtherInvaderBelow( ctx );
+	}
+
 	private boolean noOtherInvaderBelow(ITickContext ctx)
 	{
 		return ctx.getNonStaticEntities().stream().noneMatch( entity ->
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+/**
+ * A grid of invaders, organized in columns and rows (row 0 being the top-most one).
+ *
+ * All invaders of a formation have the same velocity and move in lock-step, so all
+ * invaders in a column have the same X coordinate and all invaders in a row have
+ * the same Y coordinate. This is used to
+ * <ul>
+ *   <li>keep track of the bottom-most living invader in each column so that checking whether an
+ *   invader is allowed to fire (no other invader right below it) is a simple lookup</li>
+ *   <li>keep track of the left-/right-most columns and top-/bottom-most rows that still hold invaders,
+ *   so the formation's bounding box is available without looking at each invader</li>
+ *   <li>reverse the movement direction of all invaders at once</li>
+ * </ul>
+ * Invaders that are part of a formation have no velocity of their own (so {@link EntityStore#integrate()} does
+ * not move them), they get moved by {@link #move(int)} using the formation's velocity instead.
+ * Invaders leave the formation when they are disposed.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class InvaderFormation
+{
+	private final int columns;
+	private final int rows;
+
+	// invaders[ column*rows + row ] , NULL if there is no (more) invader at this position
+	private final Invader[] invaders;
+
+	// velocity of all invaders in this formation
+	private final Vec2d velocity;
+
+	// row of the bottom-most living invader in each column, -1 if there is none
+	private final int[] bottomMostAlive;
+
+	// number of invaders per column/row and an arbitrary invader from each column/row
+	private final int[] columnCount;
+	private final int[] rowCount;
+	private final Invader[] columnRepresentative;
+	private final Invader[] rowRepresentative;
+
+	// bounding box in columns/rows
+	private int leftColumn;
+	private int rightColumn;
+	private int topRow;
+	private int bottomRow;
+
+	private int size;
+
+	// tick on which invaders need to move down one step
+	private int dropTick = -1;
+
+	public InvaderFormation(int columns,int rows,int velocityX)
+	{
+		if ( columns < 1 || rows < 1 ) {
+			throw new IllegalArgumentException("Invalid formation size: "+columns+"x"+rows);
+		}
+		this.columns = columns;
+		this.rows = rows;
+		this.invaders = new Invader[ columns*rows ];
+		this.velocity = new Vec2d( velocityX , 0 );
+		this.bottomMostAlive = new int[ columns ];
+		Arrays.fill( bottomMostAlive , -1 );
+		this.columnCount = new int[ columns ];
+		this.rowCount = new int[ rows ];
+		this.columnRepresentative = new Invader[ columns ];
+		this.rowRepresentative = new Invader[ rows ];
+		this.leftColumn = columns;
+		this.rightColumn = -1;
+		this.topRow = rows;
+		this.bottomRow = -1;
+	}
+
+	/**
+	 * Create a new invader as part of this formation.
+	 *
+	 * Invaders within the same column must be created with the same X coordinate and invaders in the same
+	 * row must be created with the same Y coordinate.
+	 *
+	 * @param position
+	 * @param sprite
+	 * @param column
+	 * @param row
+	 * @return
+	 */
+	public Invader spawn(Vec2d position,Sprite sprite,int column,int row)
+	{
+		if ( column < 0 || column >= columns || row < 0 || row >= rows ) {
+			throw new IllegalArgumentException("Position "+column+"/"+row+" is outside of formation ("+columns+"x"+rows+")");
+		}
+		final int idx = column*rows + row;
+		if ( invaders[idx] != null ) {
+			throw new IllegalArgumentException("Position "+column+"/"+row+" is already occupied");
+		}
+		final Invader invader = new Invader( position , sprite , this , column , row );
+		invaders[idx] = invader;
+		size++;
+
+		if ( row > bottomMostAlive[column] ) {
+			bottomMostAlive[column] = row;
+		}
+		if ( columnCount[column]++ == 0 ) {
+			columnRepresentative[column] = invader;
+		}
+		if ( rowCount[row]++ == 0 ) {
+			rowRepresentative[row] = invader;
+		}
+		leftColumn = Math.min( leftColumn , column );
+		rightColumn = Math.max( rightColumn , column );
+		topRow = Math.min( topRow , row );
+		bottomRow = Math.max( bottomRow , row );
+		return invader;
+	}
+
+	/**
+	 * Returns whether an invader is the bottom-most living invader of its column.
+	 *
+	 * @param invader invader, must be part of this formation
+	 * @return
+	 */
+	public boolean isBottomMost(Invader invader) {
+		return bottomMostAlive[ invader.column ] == invader.row;
+	}
+
+	/**
+	 * Invoked when an invader got hit.
+	 *
+	 * @param invader
+	 */
+	void invaderDestroyed(Invader invader)
+	{
+		final int column = invader.column;
+		if ( bottomMostAlive[column] != invader.row ) {
+			return;
+		}
+		int row = invader.row - 1;
+		final int offset = column*rows;
+		while ( row >= 0 && ( invaders[offset+row] == null || ! invaders[offset+row].isAlive() ) ) {
+			row--;
+		}
+		bottomMostAlive[column] = row;
+	}
+
+	/**
+	 * Invoked when an invader gets disposed.
+	 *
+	 * @param invader
+	 */
+	void invaderRemoved(Invader invader)
+	{
+		final int column = invader.column;
+		final int row = invader.row;
+		final int idx = column*rows + row;
+		if ( invaders[idx] != invader ) { // already removed
+			return;
+		}
+		invaders[idx] = null;
+		size--;
+
+		if ( bottomMostAlive[column] == row ) {
+			invaderDestroyed( invader );
+		}
+
+		if ( --columnCount[column] == 0 ) {
+			columnRepresentative[column] = null;
+		} else if ( columnRepresentative[column] == invader ) {
+			columnRepresentative[column] = findInColumn( column );
+		}
+		if ( --rowCount[row] == 0 ) {
+			rowRepresentative[row] = null;
+		} else if ( rowRepresentative[row] == invader ) {
+			rowRepresentative[row] = findInRow( row );
+		}
+
+		while ( leftColumn <= rightColumn && columnCount[leftColumn] == 0 ) {
+			leftColumn++;
+		}
+		while ( rightColumn >= leftColumn && columnCount[rightColumn] == 0 ) {
+			rightColumn--;
+		}
+		while ( topRow <= bottomRow && rowCount[topRow] == 0 ) {
+			topRow++;
+		}
+		while ( bottomRow >= topRow && rowCount[bottomRow] == 0 ) {
+			bottomRow--;
+		}
+	}
+
+	private Invader findInColumn(int column)
+	{
+		for ( int row = 0 , idx = column*rows ; row < rows ; row++ , idx++ ) {
+			if ( invaders[idx] != null ) {
+				return invaders[idx];
+			}
+		}
+		return null;
+	}
+
+	private Invader findInRow(int row)
+	{
+		for ( int column = 0 , idx = row ; column < columns ; column++ , idx += rows ) {
+			if ( invaders[idx] != null ) {
+				return invaders[idx];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reverse horizontal movement direction and make all invaders
+	 * move down one step on the given tick.
+	 *
+	 * @param currentTick
+	 * @see #move(int)
+	 */
+	public void flip(int currentTick)
+	{
+		velocity.x = -velocity.x;
+		dropTick = currentTick;
+	}
+
+	/**
+	 * Move all invaders by the formation's velocity and, if the formation
+	 * got {@link #flip(int) flipped} on the given tick, one step down.
+	 *
+	 * @param currentTick
+	 */
+	public void move(int currentTick)
+	{
+		final int dx = velocity.x;
+		final int dy = velocity.y;
+		final boolean dropping = isDropping( currentTick );
+		final double maxDropY = Constants.VIEWPORT.y+Constants.VIEWPORT.height*0.8;
+		for ( final Invader invader : invaders )
+		{
+			if ( invader != null ) {
+				invader.translate( dx , dropping && invader.bottom() < maxDropY ? dy + 2 : dy );
+			}
+		}
+	}
+
+	/**
+	 * Returns whether invaders need to move down on the given tick.
+	 *
+	 * @param currentTick
+	 * @return
+	 */
+	boolean isDropping(int currentTick) {
+		return dropTick == currentTick;
+	}
+
+	/**
+	 * Returns the velocity of all invaders in this formation.
+	 *
+	 * The returned instance must not be modified, use {@link #flip(int)} to change direction.
+	 *
+	 * @return
+	 */
+	public Vec2d getVelocity() {
+		return velocity;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of invaders in this formation.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	// bounding box of all invaders, only valid if the formation is not empty
+	public int left() { return columnRepresentative[ leftColumn ].left(); }
+	public int right() { return columnRepresentative[ rightColumn ].right(); }
+	public int top() { return rowRepresentative[ topRow ].top(); }
+	public int bottom() { return rowRepresentative[ bottomRow ].bottom(); }
+
+	public Invader getInvader(int column,int row) {
+		return invaders[ column*rows + row ];
+	}
+
+	public void forEach(Consumer<Invader> consumer)
+	{
+		for ( final Invader invader : invaders ) {
+			if ( invader != null ) {
+				consumer.accept( invader );
+			}
+		}
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	public int getRowCount() {
+		return rows;
+	}
+}
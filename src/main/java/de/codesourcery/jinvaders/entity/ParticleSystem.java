@@ -15,35 +15,44 @@
  */
 package de.codesourcery.jinvaders.entity;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import de.codesourcery.jinvaders.graphics.IRenderer;
 import de.codesourcery.jinvaders.graphics.Vec2d;
-import de.codesourcery.jinvaders.particles.Particle;
 import de.codesourcery.jinvaders.particles.ParticlePool;
 import de.codesourcery.jinvaders.particles.ParticlePool.Subpool;
 
 public final class ParticleSystem extends Entity
 {
 	private final ParticlePool pool;
-	private final List<Subpool> allocated;
+	private final List<Subpool> allocated = new ArrayList<>(5);
 
 	private final ParticleEffect effect;
 
-	private int particlesAlive;
+	// (x,y) pairs of live particles, re-used across frames
+	private final int[] pointBuffer;
+
+	// pool this system returns to when disposed, NULL if not pooled
+	ParticleSystemPool systemPool;
+	private boolean disposed;
 
 	public static final class ParticleEffect
 	{
-		private final Random rnd = new Random(System.currentTimeMillis());
+		private SplittableRandom rnd;
 
 		private final Vec2d initialPosition;
-		public final int particleCount;
-		public final float lifeTime;
+		// particle count the effect got created with, restarting it may use fewer particles
+		public final int maxParticleCount;
+		private int particleCount;
+		private float lifeTime;
 
 		public float age;
+		// decremented exactly like the life time of the particles, so all particles died once this is negative
+		private float lifetimeLeft;
 
-		public ParticleEffect(Vec2d initialPosition,int particleCount, float lifeTime)
+		public ParticleEffect(Vec2d initialPosition,int particleCount, float lifeTime,SplittableRandom rnd)
 		{
 			if ( particleCount < 1 ) {
 				throw new IllegalArgumentException("Invalid particle count: "+particleCount);
@@ -51,66 +60,121 @@ public final class ParticleSystem extends Entity
 			if ( lifeTime <= 0 ) {
 				throw new IllegalArgumentException("Invalid life time: "+lifeTime);
 			}
+			this.rnd = rnd;
 			this.initialPosition = new Vec2d(initialPosition);
+			this.maxParticleCount = particleCount;
 			this.particleCount = particleCount;
 			this.lifeTime = lifeTime;
+			this.lifetimeLeft = lifeTime;
 		}
 
-		public void onTick(float elapsedTimeInSeconds) {
-			age += elapsedTimeInSeconds;
+		/**
+		 * Restart this effect at a new position.
+		 *
+		 * @param x
+		 * @param y
+		 * @param particleCount number of particles, 1...{@link #maxParticleCount}
+		 * @param lifeTime life time of particles in seconds
+		 * @param rnd
+		 */
+		public void reset(int x,int y,int particleCount,float lifeTime,SplittableRandom rnd)
+		{
+			if ( particleCount < 1 || particleCount > maxParticleCount ) {
+				throw new IllegalArgumentException("Particle count must be in range [1,"+maxParticleCount+"], was: "+particleCount);
+			}
+			if ( lifeTime <= 0 ) {
+				throw new IllegalArgumentException("Invalid life time: "+lifeTime);
+			}
+			this.initialPosition.set( x , y );
+			this.particleCount = particleCount;
+			this.lifeTime = lifeTime;
+			this.rnd = rnd;
+			this.age = 0;
+			this.lifetimeLeft = lifeTime;
 		}
 
-		public void init(Particle p)
-		{
-			p.position.set( this.initialPosition );
+		public int getParticleCount() {
+			return particleCount;
+		}
 
-			p.velocity.set( rndNumber( 310) , rndNumber( 310 ) );
-			p.acceleration.set( rndNumber( 80 ) , rndNumber( 80 ) );
+		public float getLifeTime() {
+			return lifeTime;
+		}
 
-			p.isAlive = true;
-			p.lifetimeLeft = lifeTime;
+		public void onTick(float elapsedTimeInSeconds) {
+			age += elapsedTimeInSeconds;
+			lifetimeLeft -= elapsedTimeInSeconds;
 		}
 
-		protected float rndNumber(int limit) {
-			return -limit + 2 * limit * rnd.nextFloat();
+		/**
+		 * Returns whether all particles of this effect have died.
+		 *
+		 * @return
+		 */
+		public boolean isFinished() {
+			return lifetimeLeft < 0;
 		}
 
-		public void animate(float elapsedTimeInSecs, Particle p)
+		/**
+		 * Initialize a range of particles.
+		 *
+		 * @param pool
+		 * @param start index of first particle (inclusive)
+		 * @param end index of last particle (exclusive)
+		 */
+		public void init(ParticlePool pool,int start,int end)
 		{
-			final float vIncX = p.acceleration.x * elapsedTimeInSecs;
-			final float vIncY = p.acceleration.y * elapsedTimeInSecs;
-
-			final float incPx = p.acceleration.x / 2 * (elapsedTimeInSecs*elapsedTimeInSecs) + p.velocity.x*elapsedTimeInSecs;
-			final float incPy = p.acceleration.y / 2 * (elapsedTimeInSecs*elapsedTimeInSecs) + p.velocity.y*elapsedTimeInSecs;
-
-			p.position.add( incPx , incPy );
-			p.velocity.add( vIncX, vIncY ).limit(410);
-
-			p.lifetimeLeft -= elapsedTimeInSecs;
-			if ( p.lifetimeLeft < 0 )
+			final float x = initialPosition.x;
+			final float y = initialPosition.y;
+			for ( int i = start ; i < end ; i++ )
 			{
-				p.isAlive = false;
+				pool.positionX[i] = x;
+				pool.positionY[i] = y;
+				pool.velocityX[i] = rndNumber( 310 );
+				pool.velocityY[i] = rndNumber( 310 );
+				pool.accelerationX[i] = rndNumber( 80 );
+				pool.accelerationY[i] = rndNumber( 80 );
+				pool.alive[i] = true;
+				pool.lifetimeLeft[i] = lifeTime;
 			}
 		}
+
+		protected float rndNumber(int limit) {
+			return -limit + 2 * limit * (float) rnd.nextDouble();
+		}
 	}
 
 	public ParticleSystem(ParticlePool pool , ParticleEffect effect)
 	{
-		super(Vec2d.ZERO, Vec2d.ZERO, Vec2d.ZERO);
+		super(EntityType.PARTICLES, Vec2d.ZERO, Vec2d.ZERO, Vec2d.ZERO);
 
 		this.effect = effect;
 		this.pool = pool;
+		this.pointBuffer = new int[ effect.maxParticleCount*2 ];
+		start();
+	}
+
+	/**
+	 * Re-initialize a pooled particle system.
+	 *
+	 * @see ParticleSystemPool#acquire(int, int, int, float, SplittableRandom)
+	 */
+	void reset(int x,int y,int particleCount,float lifeTime,SplittableRandom rnd)
+	{
+		reset( 0 , 0 , 0 , 0 , 0 , 0 );
+		effect.reset( x , y , particleCount , lifeTime , rnd );
+		disposed = false;
+		start();
+	}
 
-		allocated = pool.allocateParticles( effect.particleCount );
-		this.particlesAlive = effect.particleCount;
+	private void start()
+	{
+		pool.allocateParticles( effect.getParticleCount() , allocated );
 
-		final Particle[] array = pool.particlePool;
-		for ( final Subpool subPool : allocated )
+		for ( int j = 0 , len = allocated.size() ; j < len ; j++ )
 		{
-			for ( int i = subPool.startIndex ; i < subPool.endIndex ; i++)
-			{
-				effect.init( array[i] );
-			}
+			final Subpool subPool = allocated.get(j);
+			effect.init( pool , subPool.startIndex , subPool.endIndex );
 		}
 	}
 
@@ -127,58 +191,57 @@ public final class ParticleSystem extends Entity
 	@Override
 	public void onDispose()
 	{
+		if ( disposed ) {
+			return;
+		}
+		disposed = true;
+
 		pool.releaseParticles( this.allocated );
+		allocated.clear();
+		if ( systemPool != null ) {
+			systemPool.release( this );
+		}
 	}
 
 	@Override
 	public void tick(ITickContext context)
 	{
-		final float elapsedTimeInSecs = context.getElapsedTimeInSeconds();
+		// particles get moved by ParticleSimulator, all particles share the same life time
+		// so keeping track of the effect's age is enough to know when they're gone
+		effect.onTick( context.getElapsedTimeInSeconds() );
 
-		final Particle[] array = pool.particlePool;
-		final int len = allocated.size();
-
-		effect.onTick( elapsedTimeInSecs );
-
-		for ( int i = 0 ; i < len ; i++ )
-		{
-			final Subpool subPool = allocated.get(i);
-			for ( int j = subPool.startIndex ; j < subPool.endIndex ; j++)
-			{
-				final Particle p = array[j];
-				if ( p.isAlive ) {
-					effect.animate(elapsedTimeInSecs, p);
-					if ( ! p.isAlive ) {
-						particlesAlive--;
-					}
-				}
-			}
-		}
-		if ( particlesAlive <= 0 && ! allocated.isEmpty() )
+		if ( effect.isFinished() && isAlive() )
 		{
+			// all particles are gone, get rid of this system
 			pool.releaseParticles( allocated );
 			allocated.clear();
+			setState( EntityState.DEAD );
 		}
 	}
 
 	@Override
-	public void render(IRenderer graphics)
+	public void render(IRenderer graphics,float alpha)
 	{
-		graphics.setColor( 0xee0000 ); // RED
+		final float[] px = pool.positionX;
+		final float[] py = pool.positionY;
+		final boolean[] alive = pool.alive;
+		final int[] xy = pointBuffer;
 
-		final Particle[] array = pool.particlePool;
+		int count = 0;
 		final int len = allocated.size();
 		for ( int i = 0 ; i < len ; i++ )
 		{
 			final Subpool subPool = allocated.get(i);
 			for ( int j = subPool.startIndex ; j < subPool.endIndex ; j++)
 			{
-				final Particle p = array[j];
-				if ( p.isAlive )
+				if ( alive[j] )
 				{
-					graphics.drawRect( (int) p.position.x , (int) p.position.y , 1 ,1 );
+					xy[ count*2   ] = (int) px[j];
+					xy[ count*2+1 ] = (int) py[j];
+					count++;
 				}
 			}
 		}
+		graphics.renderPoints( xy , count , 0xee0000 ); // RED
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import de.codesourcery.jinvaders.entity.ParticleSystem.ParticleEffect;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+import de.codesourcery.jinvaders.particles.ParticlePool;
+
+/**
+ * Pool of {@link ParticleSystem} instances that all play the same kind of effect.
+ *
+ * Works like {@link BulletPool}: systems return themselves to the pool when {@link ParticleSystem#onDispose()} is
+ * invoked and are restarted when handed out again.
+ *
+ * Not thread-safe, each game has its own pool.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ParticleSystemPool
+{
+	private final ParticlePool particlePool;
+	private final int particleCount;
+	private final float lifeTime;
+
+	private ParticleSystem[] free = new ParticleSystem[16];
+	private int freeCount;
+
+	// statistics
+	private int created;
+
+	/**
+	 *
+	 * @param particlePool pool to take the particles from
+	 * @param particleCount number of particles per effect
+	 * @param lifeTime life time of particles in seconds
+	 */
+	public ParticleSystemPool(ParticlePool particlePool,int particleCount,float lifeTime)
+	{
+		if ( particlePool == null ) {
+			throw new IllegalArgumentException("particlePool must not be NULL");
+		}
+		if ( particleCount < 1 ) {
+			throw new IllegalArgumentException("Invalid particle count: "+particleCount);
+		}
+		if ( lifeTime <= 0 ) {
+			throw new IllegalArgumentException("Invalid life time: "+lifeTime);
+		}
+		this.particlePool = particlePool;
+		this.particleCount = particleCount;
+		this.lifeTime = lifeTime;
+	}
+
+	/**
+	 * Get a particle system from the pool (or create a new one if the pool is empty).
+	 *
+	 * @param x initial position of particles
+	 * @param y initial position of particles
+	 * @param rnd random number generator to use for the particles' initial velocity and acceleration
+	 * @return particle system that is not part of any store yet
+	 */
+	public ParticleSystem acquire(int x,int y,SplittableRandom rnd) {
+		return acquire( x , y , particleCount , lifeTime , rnd );
+	}
+
+	/**
+	 * Get a particle system from the pool (or create a new one if the pool is empty) that
+	 * uses fewer and/or shorter-lived particles.
+	 *
+	 * @param x initial position of particles
+	 * @param y initial position of particles
+	 * @param particleCount number of particles, 1...{@link #getParticleCount()}
+	 * @param lifeTime life time of particles in seconds
+	 * @param rnd random number generator to use for the particles' initial velocity and acceleration
+	 * @return particle system that is not part of any store yet
+	 */
+	public ParticleSystem acquire(int x,int y,int particleCount,float lifeTime,SplittableRandom rnd)
+	{
+		if ( particleCount < 1 || particleCount > this.particleCount ) {
+			throw new IllegalArgumentException("Particle count must be in range [1,"+this.particleCount+"], was: "+particleCount);
+		}
+		if ( freeCount > 0 )
+		{
+			final ParticleSystem result = free[ --freeCount ];
+			free[ freeCount ] = null;
+			result.reset( x , y , particleCount , lifeTime , rnd );
+			return result;
+		}
+		// effects are always created with the max. particle count so they can be re-used at full quality later on
+		final ParticleEffect effect = new ParticleEffect( new Vec2d( x , y ) , this.particleCount , lifeTime , rnd );
+		effect.reset( x , y , particleCount , lifeTime , rnd );
+		final ParticleSystem result = new ParticleSystem( particlePool , effect );
+		result.systemPool = this;
+		created++;
+		return result;
+	}
+
+	/**
+	 * Invoked by {@link ParticleSystem#onDispose()}.
+	 *
+	 * @param system
+	 */
+	void release(ParticleSystem system)
+	{
+		if ( freeCount == free.length ) {
+			free = Arrays.copyOf( free , free.length * 2 );
+		}
+		free[ freeCount++ ] = system;
+	}
+
+	/**
+	 * Returns the (max.) number of particles per effect.
+	 *
+	 * @return
+	 */
+	public int getParticleCount() {
+		return particleCount;
+	}
+
+	/**
+	 * Returns the (max.) life time of particles in seconds.
+	 *
+	 * @return
+	 */
+	public float getLifeTime() {
+		return lifeTime;
+	}
+
+	/**
+	 * Returns the number of particle systems that are currently available for re-use.
+	 *
+	 * @return
+	 */
+	public int getAvailableCount() {
+		return freeCount;
+	}
+
+	/**
+	 * Returns the total number of particle systems this pool has created so far.
+	 *
+	 * @return
+	 */
+	public int getCreatedCount() {
+		return created;
+	}
+}
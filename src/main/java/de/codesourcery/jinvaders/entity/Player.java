@@ -29,7 +29,7 @@ public final class Player extends SpriteHoldingEntity
 	public int lifes = Constants.PLAYER_LIFES;
 
 	public Player(Vec2d position,Sprite sprite) {
-		super(position,Vec2d.ZERO,sprite);
+		super(EntityType.PLAYER,position,Vec2d.ZERO,sprite);
 	}
 
 	@Override
@@ -37,8 +37,8 @@ public final class Player extends SpriteHoldingEntity
 	{
 		super.tick(ctx);
 		if ( isOffScreen( Constants.VIEWPORT ) ) {
-			velocity.x = -velocity.x;
-			position.add( velocity );
+			setVelocity( -getVelocityX() , getVelocityY() );
+			translate( getVelocityX() , getVelocityY() );
 		}
 	}
 
@@ -59,15 +59,15 @@ public final class Player extends SpriteHoldingEntity
 	{
 		if ( ticksSinceLastShot( ctx.getCurrentTick() ) > Constants.TICKS_PER_SHOT_LIMIT && playerBulletsInFlight < Constants.MAX_PLAYER_BULLETS_IN_FLIGHT )
 		{
-			final int bulletX = left() + size.width()/2;
-			final int bulletY = top() - ctx.getSprite( SpriteImpl.PLAYER_BULLET ).size().height();
-			final Vec2d pos = new Vec2d( bulletX, bulletY );
+			final Sprite bulletSprite = ctx.getSprite( SpriteImpl.PLAYER_BULLET );
+			final int bulletX = left() + getWidth()/2;
+			final int bulletY = top() - bulletSprite.size().height();
 
-			ctx.addNewEntity( new Bullet(pos,new Vec2d( 0 , -Constants.PLAYER_BULLET_VELOCITY ),this, ctx.getSprite(SpriteImpl.PLAYER_BULLET) ) );
+			ctx.addNewEntity( ctx.getBulletPool().acquire( bulletX , bulletY , 0 , -Constants.PLAYER_BULLET_VELOCITY , this , bulletSprite ) );
 
 			tickAtLastShot = ctx.getCurrentTick();
 			playerBulletsInFlight++;
-			SoundEffect.PLAYER_SHOOTING.play();
+			ctx.playSound( SoundEffect.PLAYER_SHOOTING );
 		}
 	}
 }
\ No newline at end of file
@@ -26,7 +26,20 @@ public abstract class SpriteHoldingEntity extends Entity implements ISpriteProvi
 	private ISpriteProvider spriteProvider;
 
 	public SpriteHoldingEntity(Vec2d position, Vec2d velocity, Sprite sprite) {
-		super(position, velocity, sprite.size() );
+		this(EntityType.OTHER, position, velocity, sprite );
+	}
+
+	protected SpriteHoldingEntity(EntityType type,Vec2d position, Vec2d velocity, Sprite sprite) {
+		super(type, position, velocity, sprite.size() );
+		this.spriteProvider = sprite;
+	}
+
+	/**
+	 * Replace the sprite (and any animators) of this entity.
+	 *
+	 * @param sprite
+	 */
+	protected final void setSprite(Sprite sprite) {
 		this.spriteProvider = sprite;
 	}
 
@@ -107,7 +120,7 @@ public abstract class SpriteHoldingEntity extends Entity implements ISpriteProvi
 	}
 
 	@Override
-	public final void render(IRenderer graphics) {
-		spriteProvider.getSprite().render( graphics , position );
+	public final void render(IRenderer graphics,float alpha) {
+		spriteProvider.getSprite().render( graphics , interpolatedX( alpha ) , interpolatedY( alpha ) );
 	}
 }
\ No newline at end of file
@@ -16,16 +16,18 @@
 package de.codesourcery.jinvaders.graphics;
 
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.font.LineMetrics;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.InputStream;
 
-import javax.swing.JPanel;
-
 import de.codesourcery.jinvaders.Constants;
 import de.codesourcery.jinvaders.Main;
 
@@ -35,6 +37,11 @@ public final class AWTRenderer implements IRenderer {
 	private Graphics2D g;
 	private BufferedImage buffer;
 
+	// back buffer pixels for direct writes, NULL if the buffer does not use a packed int layout
+	private int[] pixels;
+	private int scanlineStride;
+	private int alphaMask;
+
 	private final FontHolder defaultFont;
 	private final FontHolder bigDefaultFont;
 	private final FontHolder gameOverFont;
@@ -127,6 +134,39 @@ public final class AWTRenderer implements IRenderer {
 		buffer.setRGB(x, y, color);
 	}
 
+	@Override
+	public void renderPoints(int[] xy, int count, int color)
+	{
+		final int width = buffer.getWidth();
+		final int height = buffer.getHeight();
+		final int end = count*2;
+		if ( pixels == null )
+		{
+			for ( int i = 0 ; i < end ; i+=2 )
+			{
+				final int x = xy[i];
+				final int y = xy[i+1];
+				if ( x >= 0 && y >= 0 && x < width && y < height ) {
+					buffer.setRGB( x , y , color );
+				}
+			}
+			return;
+		}
+
+		final int[] pixels = this.pixels;
+		final int stride = this.scanlineStride;
+		final int value = color | alphaMask;
+		for ( int i = 0 ; i < end ; i+=2 )
+		{
+			final int x = xy[i];
+			final int y = xy[i+1];
+			// unsigned compare also rejects negative coordinates
+			if ( Integer.compareUnsigned( x , width ) < 0 && Integer.compareUnsigned( y , height ) < 0 ) {
+				pixels[ y*stride + x ] = value;
+			}
+		}
+	}
+
 	@Override
 	public void renderCircle(int x, int y, int radius,boolean fill) {
 
@@ -156,11 +196,43 @@ public final class AWTRenderer implements IRenderer {
 				System.out.println("Using renderer: AWT");
 
 				this.appStartTime = System.currentTimeMillis();
-				final JPanel peer = (JPanel) context;
-				buffer = peer.getGraphicsConfiguration().createCompatibleImage( Constants.SCREEN_SIZE.width ,  Constants.SCREEN_SIZE.height );
+				if ( context instanceof Component && ((Component) context).getGraphicsConfiguration() != null ) {
+					final Component peer = (Component) context;
+					buffer = peer.getGraphicsConfiguration().createCompatibleImage( Constants.SCREEN_SIZE.width ,  Constants.SCREEN_SIZE.height );
+				} else {
+					// no screen to render to (for example when running headless)
+					buffer = new BufferedImage( Constants.SCREEN_SIZE.width ,  Constants.SCREEN_SIZE.height , BufferedImage.TYPE_INT_RGB );
+				}
 				g = buffer.createGraphics();
 				g.setFont( (Font) defaultFont.image );
+				setupPixelAccess();
+			}
+		}
+	}
+
+	private void setupPixelAccess()
+	{
+		// grabbing the pixel array prevents the image from being cached in video memory
+		// but the back buffer gets rewritten every frame anyway
+		final DataBuffer dataBuffer = buffer.getRaster().getDataBuffer();
+		if ( dataBuffer instanceof DataBufferInt && dataBuffer.getNumBanks() == 1 && dataBuffer.getOffset() == 0 &&
+				buffer.getSampleModel() instanceof SinglePixelPackedSampleModel &&
+				buffer.getRaster().getSampleModelTranslateX() == 0 && buffer.getRaster().getSampleModelTranslateY() == 0 )
+		{
+			switch( buffer.getType() )
+			{
+				case BufferedImage.TYPE_INT_RGB:
+					alphaMask = 0;
+					break;
+				case BufferedImage.TYPE_INT_ARGB:
+				case BufferedImage.TYPE_INT_ARGB_PRE:
+					alphaMask = 0xff000000; // opaque
+					break;
+				default:
+					return;
 			}
+			pixels = ((DataBufferInt) dataBuffer).getData();
+			scanlineStride = ((SinglePixelPackedSampleModel) buffer.getSampleModel()).getScanlineStride();
 		}
 	}
 
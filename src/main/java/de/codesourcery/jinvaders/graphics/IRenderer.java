@@ -46,6 +46,17 @@ public interface IRenderer
 
 	public void renderPoint(ImageHolder holder,int x,int y,int color);
 
+	/**
+	 * Renders a batch of single-pixel points in the same color.
+	 *
+	 * Points outside of the screen are silently skipped.
+	 *
+	 * @param xy point coordinates as (x,y) pairs
+	 * @param count number of points (not array elements) to render
+	 * @param color RGB color
+	 */
+	public void renderPoints(int[] xy,int count,int color);
+
 	public int queryPoint(ImageHolder holder,int x,int y);
 
 	public void renderImage(ImageHolder image,int x,int y);
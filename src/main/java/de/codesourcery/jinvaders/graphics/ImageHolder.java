@@ -69,6 +69,16 @@ public abstract class ImageHolder {
 			image.setRGB(x,y,color);
 		}
 
+		@Override
+		public void getRGB(int x, int y, int width, int height, int[] rgb, int offset, int scanSize) {
+			image.getRGB(x,y,width,height,rgb,offset,scanSize);
+		}
+
+		@Override
+		public void setRGB(int x, int y, int width, int height, int[] rgb, int offset, int scanSize) {
+			// note: goes through the raster's setDataElements() so the image stays managed (hardware-accelerated)
+			image.setRGB(x,y,width,height,rgb,offset,scanSize);
+		}
 
 	}
 
@@ -85,4 +95,18 @@ public abstract class ImageHolder {
 	public abstract int getRGB(int x,int y);
 
 	public abstract void setRGB(int x,int y,int color);
+
+	/**
+	 * Read a rectangular area of pixels (ARGB).
+	 *
+	 * @see BufferedImage#getRGB(int, int, int, int, int[], int, int)
+	 */
+	public abstract void getRGB(int x,int y,int width,int height,int[] rgb,int offset,int scanSize);
+
+	/**
+	 * Write a rectangular area of pixels (ARGB).
+	 *
+	 * @see BufferedImage#setRGB(int, int, int, int, int[], int, int)
+	 */
+	public abstract void setRGB(int x,int y,int width,int height,int[] rgb,int offset,int scanSize);
 }
\ No newline at end of file
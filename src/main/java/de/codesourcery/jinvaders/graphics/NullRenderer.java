@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.graphics;
+
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Renderer that discards all output, used when running without a display.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class NullRenderer implements IRenderer
+{
+	private final FontHolder defaultFont = new FontHolder( new Font( Font.MONOSPACED , Font.PLAIN , 12 ) );
+	private final FontHolder bigDefaultFont = new FontHolder( new Font( Font.MONOSPACED , Font.PLAIN , 18 ) );
+	private final FontHolder gameOverFont = new FontHolder( new Font( Font.MONOSPACED , Font.PLAIN , 32 ) );
+
+	@Override
+	public void initialize(Object context) {
+	}
+
+	@Override
+	public FontHolder getFont(FontKey key)
+	{
+		switch(key) {
+			case BIG:
+				return bigDefaultFont;
+			case DEFAULT:
+				return defaultFont;
+			case GAMEOVER:
+				return gameOverFont;
+			default:
+				throw new RuntimeException("Unknown font key: "+key);
+		}
+	}
+
+	@Override
+	public ImageHolder convertImage(BufferedImage image) {
+		return ImageHolder.newAWT( image );
+	}
+
+	@Override
+	public void setColor(int color) {
+	}
+
+	@Override
+	public void setBackgroundColor(int color) {
+	}
+
+	@Override
+	public void setFont(FontHolder font) {
+	}
+
+	@Override
+	public void drawString(String text, int x, int y) {
+	}
+
+	@Override
+	public Rectangle getStringBounds(String text) {
+		return new Rectangle();
+	}
+
+	@Override
+	public void clearScreen() {
+	}
+
+	@Override
+	public void fillRect(int x, int y, int width, int height) {
+	}
+
+	@Override
+	public void drawRect(int x, int y, int width, int height) {
+	}
+
+	@Override
+	public void renderPoint(int x, int y, int color) {
+	}
+
+	@Override
+	public void renderPoints(int[] xy, int count, int color) {
+	}
+
+	@Override
+	public void renderPoint(ImageHolder holder, int x, int y, int color) {
+	}
+
+	@Override
+	public int queryPoint(ImageHolder holder, int x, int y) {
+		return 0;
+	}
+
+	@Override
+	public void renderImage(ImageHolder image, int x, int y) {
+	}
+
+	@Override
+	public void begin() {
+	}
+
+	@Override
+	public void end(Object context) {
+	}
+
+	@Override
+	public float getAscent(String text) {
+		return 0;
+	}
+
+	@Override
+	public float getDescent(String text) {
+		return 0;
+	}
+
+	@Override
+	public float getFPS() {
+		return 0;
+	}
+
+	@Override
+	public void renderCircle(int x, int y, int radius, boolean fill) {
+	}
+}
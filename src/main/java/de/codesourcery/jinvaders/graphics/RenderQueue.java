@@ -0,0 +1,136 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.graphics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.codesourcery.jinvaders.entity.Entity;
+
+/**
+ * Orders entities by {@link Entity#getRenderingPriority()} without touching the list they're taken from.
+ *
+ * Since there are only a handful of distinct priorities, entities get ordered using a
+ * counting sort into re-used arrays (which is stable, so entities with the same priority
+ * keep their relative order). If the priorities are spread too far apart this
+ * falls back to {@link Arrays#sort(Object[], int, int)}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+final class RenderQueue
+{
+	// max. difference between lowest and highest priority that is handled by counting sort
+	private static final int MAX_PRIORITY_RANGE = 256;
+
+	private Entity[] unsorted = new Entity[64];
+	private Entity[] sorted = new Entity[64];
+	private int[] priorities = new int[64];
+	private final int[] counts = new int[ MAX_PRIORITY_RANGE+1 ];
+	private int size;
+
+	/**
+	 * Replace the contents of this queue with entities ordered by rendering priority.
+	 *
+	 * @param entities
+	 */
+	public void fill(List<Entity> entities) {
+		fill( entities , Collections.emptyList() );
+	}
+
+	/**
+	 * Replace the contents of this queue with entities from two lists ordered by rendering priority.
+	 *
+	 * Entities with the same priority are ordered as if the second list had been appended to the first one.
+	 *
+	 * @param entities
+	 * @param moreEntities
+	 */
+	public void fill(List<Entity> entities,List<Entity> moreEntities)
+	{
+		clear();
+
+		final int firstLen = entities.size();
+		final int len = firstLen + moreEntities.size();
+		if ( unsorted.length < len )
+		{
+			final int newCapacity = len + len/2;
+			unsorted = new Entity[ newCapacity ];
+			sorted = new Entity[ newCapacity ];
+			priorities = new int[ newCapacity ];
+		}
+		size = len;
+		if ( len == 0 ) {
+			return;
+		}
+
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for ( int i = 0 ; i < len ; i++ )
+		{
+			final Entity e = i < firstLen ? entities.get(i) : moreEntities.get( i - firstLen );
+			final int priority = e.getRenderingPriority();
+			unsorted[i] = e;
+			priorities[i] = priority;
+			min = Math.min( min , priority );
+			max = Math.max( max , priority );
+		}
+
+		if ( min == max ) { // nothing to sort
+			System.arraycopy( unsorted , 0 , sorted , 0 , len );
+			return;
+		}
+
+		final long range = (long) max - min + 1;
+		if ( range > MAX_PRIORITY_RANGE )
+		{
+			System.arraycopy( unsorted , 0 , sorted , 0 , len );
+			Arrays.sort( sorted , 0 , len );
+			return;
+		}
+
+		// counts[p+1] = number of entities with priority p , turned into the start offset of priority p
+		final int[] counts = this.counts;
+		Arrays.fill( counts , 0 , (int) range + 1 , 0 );
+		for ( int i = 0 ; i < len ; i++ ) {
+			counts[ priorities[i] - min + 1 ]++;
+		}
+		for ( int i = 1 ; i < range ; i++ ) {
+			counts[i] += counts[i-1];
+		}
+		for ( int i = 0 ; i < len ; i++ ) {
+			sorted[ counts[ priorities[i] - min ]++ ] = unsorted[i];
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Entity get(int index) {
+		return sorted[index];
+	}
+
+	/**
+	 * Removes all entities (so the queue does not keep disposed entities alive).
+	 */
+	public void clear()
+	{
+		Arrays.fill( unsorted , 0 , size , null );
+		Arrays.fill( sorted , 0 , size , null );
+		size = 0;
+	}
+}
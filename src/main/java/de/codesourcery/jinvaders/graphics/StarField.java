@@ -1,6 +1,6 @@
 package de.codesourcery.jinvaders.graphics;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import de.codesourcery.jinvaders.Constants;
 import de.codesourcery.jinvaders.ITickListener;
@@ -8,7 +8,7 @@ import de.codesourcery.jinvaders.entity.ITickContext;
 
 public class StarField implements ITickListener
 {
-	private final Random rnd = new Random(System.currentTimeMillis());
+	private final SplittableRandom rnd;
 
 	private final int starCount;
 	private final float[] x;
@@ -16,8 +16,9 @@ public class StarField implements ITickListener
 	private final float[] radius;
 	private final float[] speed;
 
-	public StarField(int starCount) {
+	public StarField(int starCount,SplittableRandom rnd) {
 		this.starCount = starCount;
+		this.rnd = rnd;
 		x      = new float[starCount];
 		y      = new float[starCount];
 		radius = new float[starCount];
@@ -29,10 +30,10 @@ public class StarField implements ITickListener
 
 		for ( int i = 0 ; i < starCount ; i++ )
 		{
-			x[i] = rnd.nextFloat();
-			y[i] = rnd.nextFloat();
-			speed[i] = rnd.nextFloat();
-			radius[i] = rnd.nextFloat();
+			x[i] = (float) rnd.nextDouble();
+			y[i] = (float) rnd.nextDouble();
+			speed[i] = (float) rnd.nextDouble();
+			radius[i] = (float) rnd.nextDouble();
 		}
 	}
 
@@ -25,12 +25,17 @@ import de.codesourcery.jinvaders.Game;
 import de.codesourcery.jinvaders.HighscoreEntry;
 import de.codesourcery.jinvaders.ITickListener;
 import de.codesourcery.jinvaders.entity.ITickContext;
+import de.codesourcery.jinvaders.particles.ParticleGovernor;
+import de.codesourcery.jinvaders.profiling.Phase;
+import de.codesourcery.jinvaders.profiling.RollingHistogram;
+import de.codesourcery.jinvaders.profiling.TickProfiler;
 
 
 public class UITheme implements ITickListener {
 
-	private static final DecimalFormat FLOAT_FORMAT = new DecimalFormat("####0.0#");
-	private static final DecimalFormat PLAYER_SCORE_FORMAT = new DecimalFormat("0000000");
+	// not static since DecimalFormat is not thread-safe and multiple games may run concurrently
+	private final DecimalFormat floatFormat = new DecimalFormat("####0.0#");
+	private final DecimalFormat playerScoreFormat = new DecimalFormat("0000000");
 
 	private FontHolder defaultFont;
 	private FontHolder bigDefaultFont;
@@ -39,13 +44,16 @@ public class UITheme implements ITickListener {
 	private StarField starField;
 	private Game game;
 
+	// entities sorted by draw order, re-used across frames
+	private final RenderQueue renderQueue = new RenderQueue();
+
 	public UITheme()
 	{
 	}
 
 	public void initialize(Game game , IRenderer renderer)
 	{
-		starField = new StarField(100);
+		starField = new StarField(100,game.splitRandom());
 		this.game = game;
 		this.defaultFont = renderer.getFont(FontKey.DEFAULT);
 		this.bigDefaultFont = renderer.getFont(FontKey.BIG);
@@ -116,9 +124,50 @@ public class UITheme implements ITickListener {
 
 		y+= FONT_HEIGHT;
 
-		// render FPS
-		g.drawString("FPS: "+formatFloat( g.getFPS() ), X_OFFSET ,y);
+		// render FPS (averaged over the last couple of frames, fall back to the renderer's lifetime average)
+		final float fps = game.getProfiler().getFramesPerSecond();
+		g.drawString("FPS: "+formatFloat( fps > 0 ? fps : g.getFPS() ), X_OFFSET ,y);
 		y+= FONT_HEIGHT;
+
+		if ( game.isProfilerOverlayVisible() ) {
+			renderProfilerOverlay( g , X_OFFSET , y );
+		}
+	}
+
+	private void renderProfilerOverlay(IRenderer g,int x,int y)
+	{
+		final TickProfiler profiler = game.getProfiler();
+		final Phase[] phases = Phase.values();
+
+		final int lineHeight = defaultFont.getSize()+4;
+		final int width = 40 * defaultFont.getSize();
+		final int height = ( phases.length + 2 ) * lineHeight + 8;
+
+		g.setColor( 0 ); // BLACK
+		g.fillRect( x-4 , y-lineHeight , width , height );
+		g.setColor( 0xffffff ); // WHITE
+		g.drawRect( x-4 , y-lineHeight , width , height );
+
+		g.setFont( defaultFont );
+		g.drawString( String.format("%-13s%8s%8s%8s" , "us" , "p50" , "p99" , "max" ) , x , y );
+		y += lineHeight;
+
+		g.setColor( 0x00ee00 ); // GREEN
+		for ( final Phase phase : phases )
+		{
+			final RollingHistogram h = profiler.getHistogram( phase );
+			final String text = String.format("%-13s%8.1f%8.1f%8.1f" , phase.displayName ,
+					h.getValueAtPercentile( 50 ) / 1000f , h.getValueAtPercentile( 99 ) / 1000f , h.getMax() / 1000f );
+			g.drawString( text , x , y );
+			y += lineHeight;
+		}
+
+		final ParticleGovernor governor = game.getParticleGovernor();
+		g.setColor( governor.getDegradationLevel() == 0 ? 0x00ee00 : 0xffff00 ); // GREEN or YELLOW
+		// live particles, max. live particles, particle count of new effects relative to full quality
+		g.drawString( String.format("%-13s%8d%8d%7d%%" , "particles" , game.getParticleCount() , governor.getParticleBudget() ,
+				Math.round( 100 * governor.getParticleScale() ) ) , x , y );
+		g.setColor( 0xffffff ); // WHITE
 	}
 
 	private Rectangle renderCenteredText(String text, int x, int y , int width, int height , IRenderer g) {
@@ -187,11 +236,15 @@ public class UITheme implements ITickListener {
 		// render all game entities
 
 		// sort entities by draw order
-		Collections.sort( game.nonStaticEntities);
-		game.nonStaticEntities.forEach( e -> e.render(g) );
+		renderQueue.fill( game.entities.asList() , game.effects.asList() );
+		final float alpha = game.getInterpolationAlpha();
+		for ( int i = 0 , len = renderQueue.size() ; i < len ; i++ ) {
+			renderQueue.get(i).render(g,alpha);
+		}
+		renderQueue.clear();
 
 		// sort by draw order
-		game.barricades.forEach( e -> e.render(g ) );
+		game.barricades.forEach( e -> e.render(g,alpha) );
 	}
 
 	public void renderBackground(IRenderer g)
@@ -234,12 +287,12 @@ public class UITheme implements ITickListener {
 		return game.spriteRepository.getSprite( key );
 	}
 
-	private static String formatFloat(double value) {
-		return FLOAT_FORMAT.format( value );
+	private String formatFloat(double value) {
+		return floatFormat.format( value );
 	}
 
-	private static String formatScore(int score) {
-		return PLAYER_SCORE_FORMAT.format( score );
+	private String formatScore(int score) {
+		return playerScoreFormat.format( score );
 	}
 
 	@Override
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.headless;
+
+import de.codesourcery.jinvaders.util.IPlayerInput;
+
+/**
+ * Trivial player input that keeps firing while moving back and forth.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class Autopilot implements IPlayerInput
+{
+	// number of ticks after which the autopilot changes direction
+	private static final int TICKS_PER_DIRECTION = 90;
+
+	private int ticks;
+
+	@Override
+	public int poll()
+	{
+		final boolean left = ( ticks++ / TICKS_PER_DIRECTION ) % 2 == 0;
+		return FIRE | ( left ? MOVE_LEFT : MOVE_RIGHT );
+	}
+
+	@Override
+	public void sessionStarted(long seed) {
+		ticks = 0;
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.headless;
+
+/**
+ * Runs the game simulation as fast as possible without display or sound and
+ * reports the achieved tick rate.
+ *
+ * Usage: <code>HeadlessMain [number of ticks]</code>
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class HeadlessMain
+{
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless" , "true" );
+
+		final int ticks = args.length > 0 ? Integer.parseInt( args[0] ) : 1_000_000;
+
+		final HeadlessSimulation simulation = new HeadlessSimulation();
+
+		final long start = System.nanoTime();
+		simulation.runTicks( ticks );
+		final long elapsedNanos = System.nanoTime() - start;
+
+		final double seconds = elapsedNanos / 1_000_000_000d;
+		System.out.println("Simulated "+simulation.getTicksSimulated()+" ticks ("+simulation.getGamesPlayed()+" games) in "+
+				String.format("%.2f",seconds)+" s = "+String.format("%.0f", simulation.getTicksSimulated() / seconds )+" ticks/s");
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.headless;
+
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.GameState;
+import de.codesourcery.jinvaders.graphics.NullRenderer;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.sound.NullSoundSystem;
+
+/**
+ * Runs a {@link Game} without display, sound or keyboard.
+ *
+ * The player is controlled by a trivial autopilot that keeps firing while
+ * moving back and forth. Whenever the game ends, a new one is started
+ * immediately.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class HeadlessSimulation
+{
+	public static final float SECONDS_PER_TICK = 1f / Constants.TICKS_PER_SECOND;
+
+	public final Game game;
+
+	private long ticksSimulated;
+	private int gamesPlayed;
+
+	public HeadlessSimulation() {
+		this( new SpriteRepository() , System.nanoTime() );
+	}
+
+	/**
+	 *
+	 * @param sprites sprites to use, may be shared between simulations
+	 * @param seed seed for the game's random number generators
+	 */
+	public HeadlessSimulation(SpriteRepository sprites,long seed)
+	{
+		this.game = new Game( new NullRenderer() , new NullSoundSystem() , sprites , seed );
+		this.game.setPlayerInput( new Autopilot() );
+		this.game.startGame();
+	}
+
+	/**
+	 * Advance the simulation.
+	 *
+	 * @param tickCount number of ticks to simulate
+	 */
+	public void runTicks(int tickCount)
+	{
+		for ( int i = 0 ; i < tickCount ; i++ )
+		{
+			if ( game.getGameState() != GameState.PLAYING )
+			{
+				gamesPlayed++;
+				game.startGame();
+			}
+			game.tick( SECONDS_PER_TICK );
+			ticksSimulated++;
+		}
+	}
+
+	public long getTicksSimulated() {
+		return ticksSimulated;
+	}
+
+	public int getGamesPlayed() {
+		return gamesPlayed;
+	}
+}
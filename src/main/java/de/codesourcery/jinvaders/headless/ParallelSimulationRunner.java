@@ -0,0 +1,171 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.headless;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+
+/**
+ * Runs many independent {@link HeadlessSimulation}s concurrently on a fork/join pool.
+ *
+ * Each simulation is advanced in batches of ticks, a simulation is only ever
+ * touched by one worker thread at a time and game instances do not share
+ * any mutable state (except for the read-only sprites).
+ *
+ * Usage: <code>ParallelSimulationRunner [number of games] [ticks per game] [number of threads]</code>
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class ParallelSimulationRunner
+{
+	private final List<HeadlessSimulation> simulations = new ArrayList<>();
+	private final ForkJoinPool pool;
+
+	public static final class Result
+	{
+		public final int gameCount;
+		public final long totalTicks;
+		public final int gamesPlayed;
+		public final long elapsedNanos;
+
+		private Result(int gameCount, long totalTicks, int gamesPlayed, long elapsedNanos)
+		{
+			this.gameCount = gameCount;
+			this.totalTicks = totalTicks;
+			this.gamesPlayed = gamesPlayed;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public double getTicksPerSecond() {
+			return totalTicks / ( elapsedNanos / 1_000_000_000d );
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Simulated "+totalTicks+" ticks ("+gameCount+" instances, "+gamesPlayed+" games) in "+
+					String.format("%.2f", elapsedNanos / 1_000_000_000d )+" s = "+String.format("%.0f", getTicksPerSecond() )+" ticks/s";
+		}
+	}
+
+	/**
+	 *
+	 * @param gameCount
+	 * @param parallelism
+	 * @param seed seed for the first game, subsequent games use consecutive seeds
+	 */
+	public ParallelSimulationRunner(int gameCount,int parallelism,long seed)
+	{
+		if ( gameCount < 1 ) {
+			throw new IllegalArgumentException("gameCount must be >= 1");
+		}
+		this.pool = new ForkJoinPool( parallelism );
+
+		final SpriteRepository sprites = new SpriteRepository();
+		for ( int i = 0 ; i < gameCount ; i++ ) {
+			simulations.add( new HeadlessSimulation( sprites , seed+i ) );
+		}
+	}
+
+	/**
+	 * Advance all simulations.
+	 *
+	 * @param ticksPerGame number of ticks to simulate for each game
+	 * @param ticksPerBatch number of ticks a worker thread simulates for a game before moving on to the next one
+	 * @return
+	 */
+	public Result run(int ticksPerGame,int ticksPerBatch) throws InterruptedException
+	{
+		if ( ticksPerBatch < 1 ) {
+			throw new IllegalArgumentException("ticksPerBatch must be >= 1");
+		}
+
+		final long ticksBefore = totalTicks();
+		final int gamesBefore = gamesPlayed();
+		final long start = System.nanoTime();
+
+		final List<Callable<Void>> tasks = new ArrayList<>( simulations.size() );
+		for ( int remaining = ticksPerGame ; remaining > 0 ; remaining -= ticksPerBatch )
+		{
+			final int batchSize = Math.min( remaining , ticksPerBatch );
+			tasks.clear();
+			for ( final HeadlessSimulation simulation : simulations )
+			{
+				tasks.add( () ->
+				{
+					simulation.runTicks( batchSize );
+					return null;
+				});
+			}
+			for ( final Future<Void> future : pool.invokeAll( tasks ) )
+			{
+				try {
+					future.get();
+				}
+				catch (final ExecutionException e) {
+					throw new RuntimeException("Simulation failed",e.getCause());
+				}
+			}
+		}
+		final long elapsed = System.nanoTime() - start;
+		return new Result( simulations.size() , totalTicks() - ticksBefore , gamesPlayed() - gamesBefore , elapsed );
+	}
+
+	/**
+	 * Returns the simulations run by this runner.
+	 *
+	 * @return read-only list, ordered by seed
+	 */
+	public List<HeadlessSimulation> getSimulations() {
+		return Collections.unmodifiableList( simulations );
+	}
+
+	private long totalTicks() {
+		return simulations.stream().mapToLong( HeadlessSimulation::getTicksSimulated ).sum();
+	}
+
+	private int gamesPlayed() {
+		return simulations.stream().mapToInt( HeadlessSimulation::getGamesPlayed ).sum();
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		System.setProperty("java.awt.headless" , "true" );
+
+		final int gameCount = args.length > 0 ? Integer.parseInt( args[0] ) : 200;
+		final int ticksPerGame = args.length > 1 ? Integer.parseInt( args[1] ) : 10_000;
+		final int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+
+		final ParallelSimulationRunner runner = new ParallelSimulationRunner( gameCount , threads , System.nanoTime() );
+		try {
+			System.out.println( "Running on "+threads+" threads" );
+			System.out.println( runner.run( ticksPerGame , 1000 ) );
+		} finally {
+			runner.shutdown();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted when a bullet's bounds intersect a barricade.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@Name("de.codesourcery.jinvaders.BarricadeHit")
+@Label("Barricade Hit")
+@Category({"JInvaders","Simulation"})
+@Description("Bullet overlapping a barricade, pixels cleared is zero if the bullet passed through an already destroyed part")
+@StackTrace(false)
+public final class BarricadeHitEvent extends Event
+{
+	@Label("Pixels Cleared")
+	public int pixelsCleared;
+
+	@Label("Bullet Moving Up")
+	public boolean movingUp;
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted when particles get allocated from a particle pool.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@Name("de.codesourcery.jinvaders.ParticleAllocation")
+@Label("Particle Allocation")
+@Category({"JInvaders","Particles"})
+@Description("Particles allocated from a ParticlePool")
+@StackTrace(false)
+public final class ParticleAllocationEvent extends Event
+{
+	@Label("Particles Requested")
+	public int particleCount;
+
+	@Label("Subpools")
+	@Description("Number of subpools the allocation got split across")
+	public int subpoolCount;
+
+	@Label("Pool Grew")
+	@Description("Whether the pool's backing array had to be enlarged")
+	public boolean poolGrew;
+
+	@Label("Pool Capacity")
+	public int poolCapacity;
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event emitted for each simulation tick.
+ *
+ * Phase durations are only populated for ticks where the game was in PLAYING state.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@Name("de.codesourcery.jinvaders.Tick")
+@Label("Game Tick")
+@Category({"JInvaders","Simulation"})
+@Description("A single fixed-step simulation tick")
+@StackTrace(false)
+public final class TickEvent extends Event
+{
+	@Label("Tick")
+	public int tick;
+
+	@Label("Game State")
+	public String gameState;
+
+	@Label("Remove Dead Entities")
+	@Timespan(Timespan.NANOSECONDS)
+	public long removeDeadNanos;
+
+	@Label("Invader Flip")
+	@Timespan(Timespan.NANOSECONDS)
+	public long invaderFlipNanos;
+
+	@Label("Tick Listeners")
+	@Timespan(Timespan.NANOSECONDS)
+	public long tickListenersNanos;
+
+	@Label("Tick Entities")
+	@Timespan(Timespan.NANOSECONDS)
+	public long tickEntitiesNanos;
+
+	@Label("Particles")
+	@Timespan(Timespan.NANOSECONDS)
+	public long particlesNanos;
+
+	@Label("Collision Detection")
+	@Timespan(Timespan.NANOSECONDS)
+	public long collisionNanos;
+
+	@Label("Barricade Checks")
+	@Timespan(Timespan.NANOSECONDS)
+	public long barricadesNanos;
+
+	@Label("Entities")
+	public int entityCount;
+
+	@Label("Invaders")
+	public int invaderCount;
+
+	@Label("Bullets")
+	public int bulletCount;
+
+	@Label("Particle Systems")
+	public int particleSystemCount;
+
+	@Label("Particle Budget")
+	@Description("Max. number of live particles")
+	public int particleBudget;
+
+	@Label("Particle Degradation Level")
+	@Description("0 = full quality")
+	public int particleDegradationLevel;
+
+	@Label("Colliding Entities")
+	public int collidingEntityCount;
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+/**
+ * Moves particles and updates their remaining life time.
+ *
+ * For each particle in a range:
+ * <pre>
+ * position += acceleration * dt&sup2; / 2 + velocity * dt
+ * velocity  = limit( velocity + acceleration * dt , {@link #MAX_VELOCITY} )
+ * lifetimeLeft -= dt
+ * alive &amp;= lifetimeLeft &gt;= 0
+ * </pre>
+ *
+ * Dead particles get moved as well (they're never rendered), this keeps the kernel free of branches.
+ * All implementations must produce exactly the same results.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see ParticleKernels#create()
+ */
+public interface IParticleKernel
+{
+	/**
+	 * Max. particle velocity in pixels per second.
+	 */
+	public static final float MAX_VELOCITY = 410;
+
+	/**
+	 * Animate a range of particles.
+	 *
+	 * @param pool
+	 * @param start index of first particle (inclusive)
+	 * @param end index of last particle (exclusive)
+	 * @param elapsedTimeInSecs
+	 */
+	public void integrate(ParticlePool pool, int start, int end, float elapsedTimeInSecs);
+}
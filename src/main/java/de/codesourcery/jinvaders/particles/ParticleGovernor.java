@@ -0,0 +1,218 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.profiling.Phase;
+import de.codesourcery.jinvaders.profiling.TickProfiler;
+
+/**
+ * Scales particle counts and life times of new effects so that simulating and rendering
+ * stays within a frame budget.
+ *
+ * The time spent per frame (simulation ticks plus rendering) is smoothed over the last couple
+ * of ticks and compared against the frame budget. When it gets close to the budget,
+ * the degradation level goes up (fewer, shorter-lived particles), once there's plenty of
+ * headroom again it slowly goes back down. Independent of the level, new effects
+ * never push the number of live particles past the current particle budget, so even
+ * a burst of explosions (a whole row of invaders dying at once) has a bounded cost. Effects
+ * get at least {@link #MIN_PARTICLES_PER_EFFECT} particles so they stay visible, effects
+ * that would not fit into the budget get skipped altogether.
+ *
+ * Not thread-safe, each game has its own governor.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ParticleGovernor
+{
+	/**
+	 * Highest degradation level.
+	 */
+	public static final int MAX_LEVEL = 4;
+
+	/**
+	 * Particles never get scaled below this count.
+	 */
+	public static final int MIN_PARTICLES_PER_EFFECT = 20;
+
+	// fraction of particles / life time new effects get, indexed by degradation level
+	private static final float[] PARTICLE_SCALE = { 1f , 0.8f , 0.6f , 0.4f , 0.2f };
+	private static final float[] LIFETIME_SCALE = { 1f , 0.9f , 0.8f , 0.7f , 0.6f };
+
+	// weight of the latest sample when smoothing the frame time
+	private static final float SMOOTHING = 0.1f;
+
+	// degrade when using more than this fraction of the frame budget
+	private static final float HIGH_WATERMARK = 0.8f;
+	// recover when using less than this fraction of the frame budget
+	private static final float LOW_WATERMARK = 0.5f;
+
+	// min. number of updates between degrading further
+	private static final int DEGRADE_DELAY = 6;
+	// number of consecutive updates with plenty of headroom before going up one level
+	private static final int RECOVER_DELAY = Constants.TICKS_PER_SECOND;
+
+	private static final float TICKS_PER_FRAME = Constants.TICKS_PER_SECOND / (float) Constants.FRAMES_PER_SECOND;
+
+	private final long frameBudgetNanos;
+	private final int maxParticles;
+
+	private float load;
+	private int level;
+	private int updatesSinceLevelChange;
+	private int updatesWithHeadroom;
+
+	/**
+	 *
+	 * @param frameBudgetNanos time available for simulating and rendering a single frame
+	 * @param maxParticles max. number of live particles when not degraded
+	 */
+	public ParticleGovernor(long frameBudgetNanos,int maxParticles)
+	{
+		if ( frameBudgetNanos <= 0 ) {
+			throw new IllegalArgumentException("Invalid frame budget: "+frameBudgetNanos);
+		}
+		if ( maxParticles < MIN_PARTICLES_PER_EFFECT ) {
+			throw new IllegalArgumentException("Max. particle count must be >= "+MIN_PARTICLES_PER_EFFECT+", was: "+maxParticles);
+		}
+		this.frameBudgetNanos = frameBudgetNanos;
+		this.maxParticles = maxParticles;
+	}
+
+	/**
+	 * Update using the latest tick and render times recorded by a profiler.
+	 *
+	 * To be called once per rendered frame (not per tick, catch-up ticks would count
+	 * the same frame time multiple times).
+	 *
+	 * @param profiler
+	 * @see Phase#TICK
+	 * @see Phase#RENDER
+	 */
+	public void update(TickProfiler profiler)
+	{
+		final long tickNanos = profiler.getHistogram( Phase.TICK ).getLastValue();
+		final long renderNanos = profiler.getHistogram( Phase.RENDER ).getLastValue();
+		update( (long) ( tickNanos * TICKS_PER_FRAME ) + renderNanos );
+	}
+
+	/**
+	 * Update with the time it took to simulate and render the latest frame.
+	 *
+	 * @param frameNanos
+	 */
+	public void update(long frameNanos)
+	{
+		load += SMOOTHING * ( frameNanos / (float) frameBudgetNanos - load );
+		updatesSinceLevelChange++;
+
+		if ( load < LOW_WATERMARK ) {
+			updatesWithHeadroom++;
+		} else {
+			updatesWithHeadroom = 0;
+		}
+
+		if ( load > HIGH_WATERMARK )
+		{
+			if ( level < MAX_LEVEL && updatesSinceLevelChange >= DEGRADE_DELAY ) {
+				level++;
+				updatesSinceLevelChange = 0;
+			}
+		}
+		else if ( level > 0 && updatesWithHeadroom >= RECOVER_DELAY )
+		{
+			level--;
+			updatesSinceLevelChange = 0;
+			updatesWithHeadroom = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of particles a new effect may use.
+	 *
+	 * The result never exceeds the particles left in the {@link #getParticleBudget() budget}, once
+	 * there's not enough left for even {@link #MIN_PARTICLES_PER_EFFECT} particles, no new effects
+	 * should be started.
+	 *
+	 * @param requested number of particles the effect would use at full quality
+	 * @param liveParticles number of particles currently in use
+	 * @return number of particles (never more than <code>requested</code>) or 0 if the effect should be skipped
+	 */
+	public int getParticleCount(int requested,int liveParticles)
+	{
+		final int min = Math.min( requested , MIN_PARTICLES_PER_EFFECT );
+		final int available = getParticleBudget() - liveParticles;
+		if ( available < min ) {
+			return 0;
+		}
+		final int count = Math.max( min , (int) ( requested * PARTICLE_SCALE[ level ] ) );
+		return Math.min( count , available );
+	}
+
+	/**
+	 * Returns the life time of particles of a new effect.
+	 *
+	 * @param requested life time in seconds at full quality
+	 * @return
+	 */
+	public float getLifeTime(float requested) {
+		return requested * LIFETIME_SCALE[ level ];
+	}
+
+	/**
+	 * Returns the current degradation level.
+	 *
+	 * @return 0 (full quality) ... {@link #MAX_LEVEL}
+	 */
+	public int getDegradationLevel() {
+		return level;
+	}
+
+	/**
+	 * Returns the fraction of particles new effects get at the current degradation level.
+	 *
+	 * @return
+	 */
+	public float getParticleScale() {
+		return PARTICLE_SCALE[ level ];
+	}
+
+	/**
+	 * Returns the max. number of live particles at the current degradation level.
+	 *
+	 * @return
+	 */
+	public int getParticleBudget() {
+		return Math.max( MIN_PARTICLES_PER_EFFECT , (int) ( maxParticles * PARTICLE_SCALE[ level ] ) );
+	}
+
+	/**
+	 * Returns the smoothed time per frame as a fraction of the frame budget.
+	 *
+	 * @return
+	 */
+	public float getLoad() {
+		return load;
+	}
+
+	public void reset()
+	{
+		load = 0;
+		level = 0;
+		updatesSinceLevelChange = 0;
+		updatesWithHeadroom = 0;
+	}
+}
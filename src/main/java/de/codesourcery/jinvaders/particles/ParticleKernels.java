@@ -0,0 +1,82 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+/**
+ * Picks the {@link IParticleKernel} to use.
+ *
+ * The Vector API kernel only gets compiled when building with JDK 17 or later (see the <code>vector</code> Maven profile)
+ * and can only be used if the JVM got started with <code>--add-modules jdk.incubator.vector</code>. Note that
+ * Vector API code allocates (a lot) until it got compiled by C2.
+ *
+ * The kernel can be chosen at startup using the <code>{@value #SYSTEM_PROPERTY}</code> system property
+ * (<code>auto</code>, <code>scalar</code> or <code>vector</code>), by default the Vector API kernel
+ * is used if available.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ParticleKernels
+{
+	public static final String SYSTEM_PROPERTY = "jinvaders.particles.kernel";
+
+	static final String VECTOR_KERNEL_CLASS = "de.codesourcery.jinvaders.particles.VectorParticleKernel";
+
+	private ParticleKernels() {
+	}
+
+	/**
+	 * Create the kernel selected by the <code>{@value #SYSTEM_PROPERTY}</code> system property.
+	 *
+	 * @return
+	 * @throws IllegalArgumentException if the property has an unknown value
+	 * @throws IllegalStateException if the Vector API kernel was requested but is not available
+	 */
+	public static IParticleKernel create()
+	{
+		final String value = System.getProperty( SYSTEM_PROPERTY , "auto" ).trim().toLowerCase();
+		switch( value )
+		{
+			case "auto":
+				final IParticleKernel result = createVectorKernel();
+				return result != null ? result : new ScalarParticleKernel();
+			case "scalar":
+				return new ScalarParticleKernel();
+			case "vector":
+				final IParticleKernel vector = createVectorKernel();
+				if ( vector == null ) {
+					throw new IllegalStateException("Vector API particle kernel not available, needs JDK 17+ and --add-modules jdk.incubator.vector");
+				}
+				return vector;
+			default:
+				throw new IllegalArgumentException("Unknown particle kernel '"+value+"', valid values: auto, scalar, vector");
+		}
+	}
+
+	/**
+	 * Try to create the Vector API kernel.
+	 *
+	 * @return kernel or <code>null</code> if either the class or the <code>jdk.incubator.vector</code> module is not available
+	 */
+	public static IParticleKernel createVectorKernel()
+	{
+		try {
+			return (IParticleKernel) Class.forName( VECTOR_KERNEL_CLASS ).getDeclaredConstructor().newInstance();
+		}
+		catch(final ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -16,24 +16,65 @@
 package de.codesourcery.jinvaders.particles;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import jdk.jfr.EventType;
+
+import de.codesourcery.jinvaders.jfr.ParticleAllocationEvent;
+import de.codesourcery.jinvaders.jfr.ParticleReleaseEvent;
+
+/**
+ * Pool of particles.
+ *
+ * Particle data is kept in parallel primitive arrays (one array per attribute, indexed by particle) so that
+ * animating a range of particles is a linear sweep over a few float arrays.
+ *
+ * The pool is divided into fixed-size slabs, particles are handed out as one {@link Subpool} per slab. Free
+ * slabs are kept on a stack so allocating and releasing takes O(1) per slab. There is exactly one {@link Subpool}
+ * instance per slab, it gets created once and trimmed in place when an allocation only needs the first part
+ * of the slab. The arrays grow when the pool runs out of slabs.
+ *
+ * Note that the arrays get replaced when the pool grows, so references to them must not
+ * be kept across calls to {@link #allocateParticles(int, List)}.
+ *
+ * Not thread-safe, particles must only be allocated and released by the game thread.
+ */
 public final class ParticlePool
 {
 	private static final boolean DEBUG_ALLOCATIONS = false;
 
-	public Particle[] particlePool;
+	private static final EventType ALLOCATION_EVENT_TYPE = EventType.getEventType( ParticleAllocationEvent.class );
+	private static final EventType RELEASE_EVENT_TYPE = EventType.getEventType( ParticleReleaseEvent.class );
+
+	public static final int DEFAULT_SLAB_SIZE = 32;
+
+	public float[] positionX;
+	public float[] positionY;
+	public float[] velocityX;
+	public float[] velocityY;
+	public float[] accelerationX;
+	public float[] accelerationY;
+	public float[] lifetimeLeft;
+	public boolean[] alive;
+
+	private final int slabSize;
+	private int slabCount;
 
-	final List<Subpool> availablePools = new ArrayList<>();
-	final List<Subpool> usedPools = new ArrayList<>();
+	// range covering each slab (or the part of it that is in use)
+	private Subpool[] slabs;
+	boolean[] slabInUse;
 
-	private int releaseCount;
+	// stack of free slabs, lowest slab index on top
+	private int[] freeSlabs;
+	private int freeSlabCount;
 
 	public static final class Subpool
 	{
 		public final int startIndex;
-		public final int endIndex;
-		public final int size;
+		// adjusted by the pool each time the slab is handed out, must not be changed by anyone else
+		public int endIndex;
+		public int size;
 
 		public Subpool(int start,int end)
 		{
@@ -48,6 +89,12 @@ public final class ParticlePool
 			this.size = end-start;
 		}
 
+		void setSize(int size)
+		{
+			this.endIndex = startIndex + size;
+			this.size = size;
+		}
+
 		@Override
 		public int hashCode() {
 			int result = 31 + endIndex;
@@ -67,63 +114,110 @@ public final class ParticlePool
 
 		@Override
 		public String toString() { return "Subpool[ "+startIndex+" - "+endIndex+" ("+size+") ]"; }
-
-		public boolean canBeMergedWith(Subpool other)
-		{
-			return this.startIndex == other.endIndex || other.startIndex == this.endIndex;
-		}
-
-		public Subpool createMerged(Subpool other)
-		{
-			if ( this.endIndex == other.startIndex )
-			{
-				return new Subpool( this.startIndex , other.endIndex );
-			}
-
-			if ( this.startIndex == other.endIndex )
-			{
-				return new Subpool( other.startIndex , this.endIndex );
-			}
-
-			throw new IllegalArgumentException("Trying to merge pools that cannot be merged: "+this+" <-> "+other);
-		}
 	}
 
 	public ParticlePool(int initialCapacity)
+	{
+		this( initialCapacity , DEFAULT_SLAB_SIZE );
+	}
+
+	/**
+	 *
+	 * @param initialCapacity initial number of particles, rounded up to a multiple of the slab size
+	 * @param slabSize number of particles per slab. Allocations get rounded up to a multiple
+	 * of this size, so ideally this matches the particle count of the most common effect
+	 */
+	public ParticlePool(int initialCapacity,int slabSize)
 	{
 		if ( initialCapacity < 0 ) {
 			throw new IllegalArgumentException("Initial capacity must be >= 0");
 		}
-		particlePool = new Particle[initialCapacity];
-		for ( int i =0 ; i < initialCapacity ; i++ ) {
-			particlePool[i] = new Particle();
-		}
-		if ( initialCapacity > 0 ) {
-			availablePools.add( new Subpool( 0 , initialCapacity ) );
+		if ( slabSize < 1 ) {
+			throw new IllegalArgumentException("Slab size must be >= 1");
 		}
+		this.slabSize = slabSize;
+		slabs = new Subpool[0];
+		slabInUse = new boolean[0];
+		freeSlabs = new int[0];
+		positionX = new float[0];
+		positionY = new float[0];
+		velocityX = new float[0];
+		velocityY = new float[0];
+		accelerationX = new float[0];
+		accelerationY = new float[0];
+		lifetimeLeft = new float[0];
+		alive = new boolean[0];
+		addSlabs( ( initialCapacity + slabSize - 1 ) / slabSize );
 	}
 
-	private Subpool extendPoolAndPutOnUsed(int count)
-	{
-		final int startIdx = particlePool.length;
-		final int endIdx = startIdx+count;
+	/**
+	 * Returns the total number of particles in this pool.
+	 *
+	 * @return
+	 */
+	public int capacity() {
+		return slabCount * slabSize;
+	}
 
-		int newSize = particlePool.length + particlePool.length/2;
-		if ( newSize < count ) {
-			newSize = count + count/2;
-		}
+	public int getSlabSize() {
+		return slabSize;
+	}
 
-		final Particle[] tmp = new Particle[ newSize ];
-		System.arraycopy( particlePool , 0 , tmp , 0 , particlePool.length );
-		particlePool = tmp;
+	public int getSlabCount() {
+		return slabCount;
+	}
 
-		for ( int i = startIdx ; i < newSize ; i++ )
-		{
-			particlePool[i] = new Particle();
+	/**
+	 * Returns the number of particles that can be allocated without growing the pool.
+	 *
+	 * @return
+	 */
+	public int getAvailableCount() {
+		return freeSlabCount * slabSize;
+	}
+
+	/**
+	 * Returns the number of particles in slabs that are currently in use.
+	 *
+	 * @return
+	 */
+	public int getUsedCount() {
+		return capacity() - getAvailableCount();
+	}
+
+	private void addSlabs(int count)
+	{
+		if ( count == 0 ) {
+			return;
 		}
-		final Subpool result = new Subpool(startIdx,endIdx);
-		usedPools.add( result );
-		return result;
+		final int oldSlabCount = slabCount;
+		final int newSlabCount = oldSlabCount + count;
+		final int newSize = newSlabCount * slabSize;
+
+		positionX = Arrays.copyOf( positionX , newSize );
+		positionY = Arrays.copyOf( positionY , newSize );
+		velocityX = Arrays.copyOf( velocityX , newSize );
+		velocityY = Arrays.copyOf( velocityY , newSize );
+		accelerationX = Arrays.copyOf( accelerationX , newSize );
+		accelerationY = Arrays.copyOf( accelerationY , newSize );
+		lifetimeLeft = Arrays.copyOf( lifetimeLeft , newSize );
+		alive = Arrays.copyOf( alive , newSize );
+
+		slabs = Arrays.copyOf( slabs , newSlabCount );
+		slabInUse = Arrays.copyOf( slabInUse , newSlabCount );
+		freeSlabs = Arrays.copyOf( freeSlabs , newSlabCount );
+		for ( int i = oldSlabCount ; i < newSlabCount ; i++ ) {
+			slabs[i] = new Subpool( i * slabSize , ( i+1 ) * slabSize );
+		}
+
+		// new slabs have higher indices than all existing ones, push them below the existing free slabs
+		// so lower slabs keep getting handed out first
+		System.arraycopy( freeSlabs , 0 , freeSlabs , count , freeSlabCount );
+		for ( int i = 0 ; i < count ; i++ ) {
+			freeSlabs[i] = newSlabCount - 1 - i;
+		}
+		freeSlabCount += count;
+		slabCount = newSlabCount;
 	}
 
 	public void releaseParticles(List<Subpool> list)
@@ -132,142 +226,118 @@ public final class ParticlePool
 			return;
 		}
 
-		synchronized( availablePools )
+		final ParticleReleaseEvent event = RELEASE_EVENT_TYPE.isEnabled() ? new ParticleReleaseEvent() : null;
+		if ( event != null ) {
+			event.begin();
+		}
+
+		// release in reverse order so that allocating the same number of particles again yields the same slabs
+		for (int i = list.size()-1 ; i >= 0 ; i-- ) {
+			release( list.get(i) );
+		}
+
+		if ( DEBUG_ALLOCATIONS ) {
+			System.out.println("RELEASE: "+list+" => "+this);
+		}
+
+		if ( event != null )
 		{
-			synchronized( usedPools)
+			event.end();
+			if ( event.shouldCommit() )
 			{
+				int released = 0;
 				for (int i = 0 , len = list.size() ; i < len ; i++ ) {
-					releaseParticles( list.get(i) );
-				}
-				releaseCount += list.size();
-				if ( releaseCount > 10 ) // we'll only trigger the slow de-fragmentation every 10 releases
-				{
-					slowMerge();
-				}
-				if ( DEBUG_ALLOCATIONS )
-				{
-					final int released = list.stream().mapToInt( l -> l.size ).sum();
-					System.out.println("RELEASE: "+released+" => "+this);
+					released += list.get(i).size;
 				}
+				event.particleCount = released;
+				event.subpoolCount = list.size();
+				event.commit();
 			}
 		}
 	}
 
-	private void releaseParticles(Subpool pool)
+	private void release(Subpool pool)
 	{
-		if ( ! usedPools.remove( pool ) ) {
-			throw new IllegalArgumentException("Failed to release pool "+pool+" , maybe already freed ?");
+		final int slab = pool.startIndex / slabSize;
+		if ( pool.startIndex % slabSize != 0 || slab >= slabCount || pool != slabs[slab] ) {
+			throw new IllegalArgumentException("Subpool "+pool+" has not been allocated from this pool");
 		}
-		int idx = 0;
-		final int len = availablePools.size();
-		for ( ; idx < len ; idx++ )
-		{
-			final Subpool current = availablePools.get(idx);
-			if ( pool.startIndex < current.startIndex )
-			{
-				if ( current.canBeMergedWith( pool ) )
-				{
-					availablePools.set( idx , current.createMerged( pool ) );
-				} else {
-					availablePools.add( idx , pool );
-				}
-				return;
-			}
+		if ( ! slabInUse[slab] ) {
+			throw new IllegalArgumentException("Failed to release pool "+pool+" , maybe already freed ?");
 		}
-		availablePools.add(pool);
+		slabInUse[slab] = false;
+		freeSlabs[ freeSlabCount++ ] = slab;
 	}
 
-	public void slowMerge()
+	public List<Subpool> allocateParticles(int count)
 	{
-		boolean merged;
-		do
-		{
-			merged = false;
-			int len = availablePools.size();
-			for ( int i =0 ; i < len-1 ; i++ )
-			{
-				final Subpool pool1 = availablePools.get(i);
-				final Subpool pool2 = availablePools.get(i+1);
-				if ( pool1.canBeMergedWith( pool2 ) )
-				{
-					availablePools.set( i , pool1.createMerged( pool2 ) );
-					availablePools.remove(i+1);
-					len--;
-					i--;
-					merged = true;
-				}
-			}
-		} while ( merged );
-
-		releaseCount = 0;
+		final List<Subpool> result = new ArrayList<>(5);
+		allocateParticles( count , result );
+		return result;
 	}
 
-	public List<Subpool> allocateParticles(int count) {
+	/**
+	 * Allocate particles.
+	 *
+	 * @param count
+	 * @param result list the sub-pools holding the allocated particles get added to (one per slab)
+	 */
+	public void allocateParticles(int count,List<Subpool> result)
+	{
+		if ( count < 1 ) {
+			throw new IllegalArgumentException("count must be >= 1");
+		}
+		final ParticleAllocationEvent event = ALLOCATION_EVENT_TYPE.isEnabled() ? new ParticleAllocationEvent() : null;
+		if ( event != null ) {
+			event.begin();
+		}
 
-		final List<Subpool> result = new ArrayList<>(5);
-		int stillNeeded = count;
+		final int capacityBefore = capacity();
+		final int subpoolsBefore = result.size();
+		allocate( count , result );
 
-		synchronized( availablePools )
+		if ( event != null )
 		{
-			synchronized( usedPools)
+			event.end();
+			if ( event.shouldCommit() )
 			{
-				for ( int i = 0,len = availablePools.size() ; i < len && stillNeeded > 0 ; i++)
-				{
-					final Subpool pool = availablePools.get(i);
-					if ( pool.size > stillNeeded )
-					{
-						// pool bigger than necessary, split it
-						result.add( splitAndPutOnUsed( pool , stillNeeded ) );
-						if ( DEBUG_ALLOCATIONS ) {
-							System.out.println("ALLOC: "+count+" => "+this);
-						}
-						return result;
-					}
-
-					availablePools.remove( pool );
-					usedPools.add( pool );
-					result.add( pool );
-					stillNeeded -= pool.size;
-				}
-				if ( stillNeeded > 0 ) {
-					result.add( extendPoolAndPutOnUsed( stillNeeded ) );
-				}
-
-				if ( DEBUG_ALLOCATIONS ) {
-					System.out.println("ALLOC: "+count+" => "+this);
-				}
+				event.particleCount = count;
+				event.subpoolCount = result.size() - subpoolsBefore;
+				event.poolGrew = capacity() > capacityBefore;
+				event.poolCapacity = capacity();
+				event.commit();
 			}
 		}
-		return result;
 	}
 
-	private Subpool splitAndPutOnUsed(Subpool pool,int desiredCount)
+	private void allocate(int count,List<Subpool> result)
 	{
-		final int remainingItemsCount = pool.size - desiredCount;
-		if ( remainingItemsCount < 0 ) {
-			throw new IllegalArgumentException("Pool to small - unable to split pool "+pool+" with desired size "+desiredCount);
+		final int slabsNeeded = ( count + slabSize - 1 ) / slabSize;
+		if ( freeSlabCount < slabsNeeded ) {
+			// grow by at least 50% so that growing repeatedly stays cheap
+			addSlabs( Math.max( slabsNeeded - freeSlabCount , slabCount / 2 ) );
 		}
 
-		final Subpool result = new Subpool( pool.startIndex , pool.startIndex + desiredCount );
-		availablePools.remove( pool );
-		if ( remainingItemsCount > 0 ) {
-			availablePools.add( new Subpool(result.endIndex, result.endIndex+remainingItemsCount) );
+		int stillNeeded = count;
+		while ( stillNeeded > 0 )
+		{
+			final int slab = freeSlabs[ --freeSlabCount ];
+			slabInUse[slab] = true;
+			final int size = Math.min( stillNeeded , slabSize );
+			final Subpool subpool = slabs[slab];
+			subpool.setSize( size );
+			result.add( subpool );
+			stillNeeded -= size;
+		}
+
+		if ( DEBUG_ALLOCATIONS ) {
+			System.out.println("ALLOC: "+count+" => "+this);
 		}
-		usedPools.add( result );
-		return result;
 	}
 
 	@Override
 	public String toString()
 	{
-		synchronized( availablePools )
-		{
-			synchronized( usedPools)
-			{
-				final int used = usedPools.stream().mapToInt( pool -> pool.size ).sum();
-				final int available = availablePools.stream().mapToInt( pool -> pool.size ).sum();
-				return "Pool[ size: "+this.particlePool.length+" , available: "+available+" , used: "+used+" ]";
-			}
-		}
+		return "Pool[ size: "+capacity()+" , slab size: "+slabSize+" , available: "+getAvailableCount()+" , used: "+getUsedCount()+" ]";
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Moves all particles that are currently allocated from a {@link ParticlePool}.
+ *
+ * Each tick, the slabs in use are collected into a work list of contiguous
+ * index ranges (cut into chunks of at most {@link #CHUNK_SIZE} particles). If the total
+ * number of particles reaches a threshold, the chunks are processed in parallel
+ * using a {@link ForkJoinPool}, otherwise they're processed on the calling thread.
+ *
+ * The actual work is done by an {@link IParticleKernel}, by default the fastest one available
+ * (see {@link ParticleKernels#create()}).
+ *
+ * The threshold can be changed at startup using the <code>{@value #THRESHOLD_SYSTEM_PROPERTY}</code> system property.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ParticleSimulator
+{
+	public static final String THRESHOLD_SYSTEM_PROPERTY = "jinvaders.particles.parallelThreshold";
+
+	/**
+	 * Min. number of particles before the work gets split across threads.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+	/**
+	 * Max. number of particles processed by a single task.
+	 */
+	public static final int CHUNK_SIZE = 1024;
+
+	private final ParticlePool pool;
+	private final IParticleKernel kernel;
+	private final ForkJoinPool executor;
+	private final int parallelThreshold;
+
+	// work list
+	private int[] chunkStart = new int[16];
+	private int[] chunkEnd = new int[16];
+	private int chunkCount;
+	private int particleCount;
+
+	private final class Task extends RecursiveAction
+	{
+		private final int firstChunk;
+		private final int lastChunk; // exclusive
+		private final float elapsedTimeInSecs;
+
+		public Task(int firstChunk, int lastChunk, float elapsedTimeInSecs)
+		{
+			this.firstChunk = firstChunk;
+			this.lastChunk = lastChunk;
+			this.elapsedTimeInSecs = elapsedTimeInSecs;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if ( lastChunk - firstChunk == 1 ) {
+				kernel.integrate( pool , chunkStart[firstChunk] , chunkEnd[firstChunk] , elapsedTimeInSecs );
+				return;
+			}
+			final int middle = ( firstChunk + lastChunk ) >>> 1;
+			invokeAll( new Task( firstChunk , middle , elapsedTimeInSecs ) , new Task( middle , lastChunk , elapsedTimeInSecs ) );
+		}
+	}
+
+	public ParticleSimulator(ParticlePool pool)
+	{
+		this( pool , ParticleKernels.create() );
+	}
+
+	public ParticleSimulator(ParticlePool pool,IParticleKernel kernel)
+	{
+		this( pool , kernel , Integer.getInteger( THRESHOLD_SYSTEM_PROPERTY , DEFAULT_PARALLEL_THRESHOLD ) , ForkJoinPool.commonPool() );
+	}
+
+	/**
+	 *
+	 * @param pool
+	 * @param kernel
+	 * @param parallelThreshold min. number of particles to process in parallel
+	 * @param executor
+	 */
+	public ParticleSimulator(ParticlePool pool,IParticleKernel kernel,int parallelThreshold,ForkJoinPool executor)
+	{
+		if ( pool == null ) {
+			throw new IllegalArgumentException("pool must not be NULL");
+		}
+		if ( kernel == null ) {
+			throw new IllegalArgumentException("kernel must not be NULL");
+		}
+		if ( parallelThreshold < 0 ) {
+			throw new IllegalArgumentException("parallelThreshold must be >= 0");
+		}
+		if ( executor == null ) {
+			throw new IllegalArgumentException("executor must not be NULL");
+		}
+		this.pool = pool;
+		this.kernel = kernel;
+		this.parallelThreshold = parallelThreshold;
+		this.executor = executor;
+	}
+
+	/**
+	 * Advance all particles that are currently allocated.
+	 *
+	 * @param elapsedTimeInSecs
+	 */
+	public void tick(float elapsedTimeInSecs)
+	{
+		collectWork();
+		if ( chunkCount == 0 ) {
+			return;
+		}
+		if ( chunkCount == 1 || particleCount < parallelThreshold || executor.getParallelism() < 2 )
+		{
+			for ( int i = 0 ; i < chunkCount ; i++ ) {
+				kernel.integrate( pool , chunkStart[i] , chunkEnd[i] , elapsedTimeInSecs );
+			}
+		} else {
+			executor.invoke( new Task( 0 , chunkCount , elapsedTimeInSecs ) );
+		}
+	}
+
+	/**
+	 * Returns the number of particles processed by the last call to {@link #tick(float)}.
+	 *
+	 * @return
+	 */
+	public int getParticleCount() {
+		return particleCount;
+	}
+
+	/**
+	 * Returns the number of chunks the work got split into by the last call to {@link #tick(float)}.
+	 *
+	 * @return
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	public IParticleKernel getKernel() {
+		return kernel;
+	}
+
+	private void collectWork()
+	{
+		chunkCount = 0;
+		particleCount = 0;
+
+		final boolean[] inUse = pool.slabInUse;
+		final int slabSize = pool.getSlabSize();
+		for ( int slab = 0 , slabCount = pool.getSlabCount() ; slab < slabCount ; )
+		{
+			if ( ! inUse[slab] ) {
+				slab++;
+				continue;
+			}
+			// merge adjacent slabs that are in use
+			final int start = slab * slabSize;
+			do {
+				slab++;
+			} while ( slab < slabCount && inUse[slab] );
+			final int end = slab * slabSize;
+
+			for ( int chunk = start ; chunk < end ; chunk += CHUNK_SIZE ) {
+				addChunk( chunk , Math.min( end , chunk + CHUNK_SIZE ) );
+			}
+			particleCount += end - start;
+		}
+	}
+
+	private void addChunk(int start,int end)
+	{
+		if ( chunkCount == chunkStart.length )
+		{
+			chunkStart = Arrays.copyOf( chunkStart , chunkCount * 2 );
+			chunkEnd = Arrays.copyOf( chunkEnd , chunkCount * 2 );
+		}
+		chunkStart[ chunkCount ] = start;
+		chunkEnd[ chunkCount ] = end;
+		chunkCount++;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+/**
+ * Plain Java implementation, written as simple loops over the pool's arrays so the JIT may auto-vectorize them.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ScalarParticleKernel implements IParticleKernel
+{
+	@Override
+	public void integrate(ParticlePool pool, int start, int end, float elapsedTimeInSecs)
+	{
+		final float[] px = pool.positionX;
+		final float[] py = pool.positionY;
+		final float[] vx = pool.velocityX;
+		final float[] vy = pool.velocityY;
+		final float[] ax = pool.accelerationX;
+		final float[] ay = pool.accelerationY;
+
+		final float dt = elapsedTimeInSecs;
+		final float halfDt2 = dt*dt / 2;
+		for ( int i = start ; i < end ; i++ )
+		{
+			px[i] += ax[i] * halfDt2 + vx[i] * dt;
+			py[i] += ay[i] * halfDt2 + vy[i] * dt;
+
+			final float velX = vx[i] + ax[i] * dt;
+			final float velY = vy[i] + ay[i] * dt;
+			final float len2 = velX*velX + velY*velY;
+			final float scale = len2 > MAX_VELOCITY*MAX_VELOCITY ? MAX_VELOCITY / (float) Math.sqrt( len2 ) : 1f;
+			vx[i] = velX * scale;
+			vy[i] = velY * scale;
+		}
+
+		final float[] lifetimeLeft = pool.lifetimeLeft;
+		final boolean[] alive = pool.alive;
+		for ( int i = start ; i < end ; i++ )
+		{
+			final float left = lifetimeLeft[i] - dt;
+			lifetimeLeft[i] = left;
+			alive[i] &= left >= 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "scalar";
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.profiling;
+
+/**
+ * The phases of a simulation tick / frame that get timed by {@link TickProfiler}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public enum Phase
+{
+	// phases of Game#advanceGameState()
+	REMOVE_DEAD("remove dead"),
+	INVADER_FLIP("invader flip"),
+	TICK_LISTENERS("listeners"),
+	TICK_ENTITIES("entities"),
+	PARTICLES("particles"),
+	COLLISION("collision"),
+	BARRICADES("barricades"),
+	// a whole Game#tick() call
+	TICK("tick"),
+	// rendering a frame to the background buffer
+	RENDER("render"),
+	// time between the start of two consecutive frames
+	FRAME("frame");
+
+	public final String displayName;
+
+	private Phase(String displayName) {
+		this.displayName = displayName;
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of the last N recorded values (nanoseconds).
+ *
+ * Values are counted in log-linear buckets (like HdrHistogram does), every power of two
+ * gets split into {@link #SUB_BUCKET_COUNT} equally-sized buckets so reported percentiles
+ * are accurate to about 3%. The raw values are kept in a ring buffer so that the oldest value
+ * can be removed from its bucket once the window is full.
+ *
+ * Recording values and querying percentiles never allocates.
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class RollingHistogram
+{
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	// values below this limit get a bucket of their own
+	private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT*2;
+
+	private static final int BUCKET_COUNT = bucketIndex( Long.MAX_VALUE )+1;
+
+	private final int[] buckets = new int[ BUCKET_COUNT ];
+
+	private final long[] window;
+	private int writePtr;
+	private int count;
+	private long sum;
+	private long lastValue;
+
+	public RollingHistogram(int windowSize)
+	{
+		if ( windowSize < 1 ) {
+			throw new IllegalArgumentException("Window size must be >= 1");
+		}
+		this.window = new long[windowSize];
+	}
+
+	/**
+	 * Record a value.
+	 *
+	 * @param value value, negative values are treated as zero
+	 */
+	public void record(long value)
+	{
+		final long v = value < 0 ? 0 : value;
+		if ( count == window.length )
+		{
+			final long evicted = window[writePtr];
+			buckets[ bucketIndex( evicted ) ]--;
+			sum -= evicted;
+		} else {
+			count++;
+		}
+		window[writePtr] = v;
+		writePtr = (writePtr+1) % window.length;
+		buckets[ bucketIndex( v ) ]++;
+		sum += v;
+		lastValue = v;
+	}
+
+	/**
+	 * Returns the (approximate) value at a given percentile.
+	 *
+	 * @param percentile percentile (0...100)
+	 * @return value or 0 if no values have been recorded yet
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		if ( percentile < 0 || percentile > 100 ) {
+			throw new IllegalArgumentException("Percentile out of range: "+percentile);
+		}
+		if ( count == 0 ) {
+			return 0;
+		}
+		final int target = Math.max( 1 , (int) Math.ceil( count * percentile / 100d ) );
+		int seen = 0;
+		for ( int i = 0 ; i < BUCKET_COUNT ; i++ )
+		{
+			seen += buckets[i];
+			if ( seen >= target ) {
+				return Math.min( highestValueInBucket( i ) , getMax() );
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Returns the largest value in the window (exact).
+	 *
+	 * @return
+	 */
+	public long getMax()
+	{
+		long max = 0;
+		for ( int i = 0 ; i < count ; i++ ) {
+			max = Math.max( max , window[i] );
+		}
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : sum / (double) count;
+	}
+
+	public long getLastValue() {
+		return lastValue;
+	}
+
+	/**
+	 * Returns the number of values currently in the window.
+	 *
+	 * @return
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public int getWindowSize() {
+		return window.length;
+	}
+
+	public void reset()
+	{
+		Arrays.fill( buckets , 0 );
+		writePtr = 0;
+		count = 0;
+		sum = 0;
+		lastValue = 0;
+	}
+
+	static int bucketIndex(long value)
+	{
+		if ( value < LINEAR_LIMIT ) {
+			return (int) value;
+		}
+		final int shift = ( 63 - Long.numberOfLeadingZeros( value ) ) - SUB_BUCKET_BITS;
+		final int subBucket = (int) ( value >>> shift ); // SUB_BUCKET_COUNT ... 2*SUB_BUCKET_COUNT-1
+		return shift * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	static long highestValueInBucket(int index)
+	{
+		if ( index < LINEAR_LIMIT ) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKET_COUNT - 1;
+		final long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ( ( subBucket + 1 ) << shift ) - 1;
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.profiling;
+
+/**
+ * Records how long the individual {@link Phase phases} of simulation ticks
+ * and frames take.
+ *
+ * Timing is done with {@link System#nanoTime()} and recording never allocates, usage:
+ *
+ * <pre>
+ * long time = System.nanoTime();
+ * doSomething();
+ * time = profiler.record( Phase.XYZ , time );
+ * doSomethingElse();
+ * profiler.record( Phase.ABC , time );
+ * </pre>
+ *
+ * Each game owns its own profiler instance, profilers are not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class TickProfiler
+{
+	// 5 seconds worth of ticks/frames at 60 Hz
+	public static final int DEFAULT_WINDOW_SIZE = 300;
+
+	private final RollingHistogram[] histograms;
+
+	private long lastFrameStart;
+
+	public TickProfiler() {
+		this( DEFAULT_WINDOW_SIZE );
+	}
+
+	public TickProfiler(int windowSize)
+	{
+		final Phase[] phases = Phase.values();
+		histograms = new RollingHistogram[ phases.length ];
+		for ( int i = 0 ; i < phases.length ; i++ ) {
+			histograms[i] = new RollingHistogram( windowSize );
+		}
+	}
+
+	/**
+	 * Record the time elapsed since a given start time.
+	 *
+	 * @param phase
+	 * @param startNanos start time as returned by {@link System#nanoTime()}
+	 * @return the current time, to be used as start time of the next phase
+	 */
+	public long record(Phase phase,long startNanos)
+	{
+		final long now = System.nanoTime();
+		histograms[ phase.ordinal() ].record( now - startNanos );
+		return now;
+	}
+
+	/**
+	 * To be called at the start of each rendered frame, records the time
+	 * since the previous frame as {@link Phase#FRAME}.
+	 *
+	 * @return the current time
+	 */
+	public long frameStarted()
+	{
+		final long now = System.nanoTime();
+		if ( lastFrameStart != 0 ) {
+			histograms[ Phase.FRAME.ordinal() ].record( now - lastFrameStart );
+		}
+		lastFrameStart = now;
+		return now;
+	}
+
+	public RollingHistogram getHistogram(Phase phase) {
+		return histograms[ phase.ordinal() ];
+	}
+
+	/**
+	 * Returns the frame rate averaged over the recording window.
+	 *
+	 * @return frames per second or 0 if less than two frames have been rendered so far
+	 */
+	public float getFramesPerSecond()
+	{
+		final double mean = getHistogram( Phase.FRAME ).getMean();
+		return mean == 0 ? 0 : (float) ( 1_000_000_000d / mean );
+	}
+
+	public void reset()
+	{
+		for ( final RollingHistogram h : histograms ) {
+			h.reset();
+		}
+		lastFrameStart = 0;
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import de.codesourcery.jinvaders.Constants;
+
+/**
+ * A recorded game session.
+ *
+ * Since the simulation is fully deterministic, a session is described by the seed
+ * it was started with plus the player input for every tick. Inputs are stored
+ * run-length encoded since they rarely change from one tick to the next.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see ReplayRecorder
+ * @see ReplayPlayer
+ */
+public final class Replay
+{
+	private static final int MAGIC = 0x4a494e56; // 'JINV'
+	private static final int VERSION = 1;
+
+	/**
+	 * Max. number of ticks a replay may cover (24 hours of play), guards against
+	 * allocating huge arrays when reading corrupted files.
+	 */
+	public static final int MAX_TICKS = 24*60*60*Constants.TICKS_PER_SECOND;
+
+	public final long seed;
+
+	private final byte[] inputs;
+
+	public Replay(long seed,byte[] inputs,int tickCount)
+	{
+		if ( tickCount < 0 || tickCount > inputs.length || tickCount > MAX_TICKS ) {
+			throw new IllegalArgumentException("Invalid tick count: "+tickCount);
+		}
+		this.seed = seed;
+		this.inputs = Arrays.copyOf( inputs , tickCount );
+	}
+
+	public int getTickCount() {
+		return inputs.length;
+	}
+
+	/**
+	 * Returns the player input for a given tick.
+	 *
+	 * @param tick tick number, relative to the start of the session
+	 * @return
+	 */
+	public int getInput(int tick) {
+		return inputs[tick];
+	}
+
+	public void writeTo(OutputStream out) throws IOException
+	{
+		final DataOutputStream data = new DataOutputStream( out );
+		data.writeInt( MAGIC );
+		data.writeByte( VERSION );
+		data.writeLong( seed );
+		writeVarInt( inputs.length , data );
+
+		int i = 0;
+		while ( i < inputs.length )
+		{
+			final byte value = inputs[i];
+			int runLength = 1;
+			while ( i + runLength < inputs.length && inputs[ i + runLength ] == value ) {
+				runLength++;
+			}
+			data.writeByte( value );
+			writeVarInt( runLength , data );
+			i += runLength;
+		}
+		data.flush();
+	}
+
+	public static Replay readFrom(InputStream in) throws IOException
+	{
+		final DataInputStream data = new DataInputStream( in );
+		if ( data.readInt() != MAGIC ) {
+			throw new IOException("Not a replay file");
+		}
+		final int version = data.readUnsignedByte();
+		if ( version != VERSION ) {
+			throw new IOException("Unsupported replay version "+version);
+		}
+		final long seed = data.readLong();
+		final int tickCount = readVarInt( data );
+		if ( tickCount < 0 || tickCount > MAX_TICKS ) {
+			throw new IOException("Corrupted replay file, invalid tick count "+tickCount);
+		}
+
+		final byte[] inputs = new byte[ tickCount ];
+		int i = 0;
+		while ( i < tickCount )
+		{
+			final byte value = data.readByte();
+			final int runLength = readVarInt( data );
+			if ( runLength < 1 || runLength > tickCount - i ) {
+				throw new IOException("Corrupted replay file, invalid run length "+runLength+" at tick "+i);
+			}
+			Arrays.fill( inputs , i , i + runLength , value );
+			i += runLength;
+		}
+		return new Replay( seed , inputs , tickCount );
+	}
+
+	private static void writeVarInt(int value,DataOutputStream out) throws IOException
+	{
+		while ( ( value & ~0x7f ) != 0 )
+		{
+			out.writeByte( ( value & 0x7f ) | 0x80 );
+			value >>>= 7;
+		}
+		out.writeByte( value );
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException
+	{
+		int result = 0;
+		for ( int shift = 0 ; shift < 32 ; shift += 7 )
+		{
+			final int b = in.readUnsignedByte();
+			result |= ( b & 0x7f ) << shift;
+			if ( ( b & 0x80 ) == 0 ) {
+				return result;
+			}
+		}
+		throw new IOException("Corrupted replay file, malformed variable-length integer");
+	}
+
+	@Override
+	public String toString() {
+		return "Replay[ seed: "+seed+" , ticks: "+inputs.length+" ]";
+	}
+}
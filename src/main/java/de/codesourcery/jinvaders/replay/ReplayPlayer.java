@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.replay;
+
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.GameState;
+import de.codesourcery.jinvaders.util.IPlayerInput;
+
+/**
+ * Plays back a recorded game session.
+ *
+ * Can either be installed as the input of a game that is driven by the regular
+ * game loop (start the session with {@link Game#startGame(long)} using the replay's seed)
+ * or run a replay as fast as possible using {@link #play(Game, float)}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ReplayPlayer implements IPlayerInput
+{
+	private final Replay replay;
+	private int currentTick;
+
+	public ReplayPlayer(Replay replay)
+	{
+		if ( replay == null ) {
+			throw new IllegalArgumentException("replay must not be NULL");
+		}
+		this.replay = replay;
+	}
+
+	@Override
+	public int poll()
+	{
+		if ( isFinished() ) {
+			return 0;
+		}
+		return replay.getInput( currentTick++ );
+	}
+
+	@Override
+	public void sessionStarted(long seed) {
+		currentTick = 0;
+	}
+
+	public boolean isFinished() {
+		return currentTick >= replay.getTickCount();
+	}
+
+	/**
+	 * Replays the session on a game, as fast as possible.
+	 *
+	 * @param game
+	 * @param secondsPerTick simulation time step, must be the same that was used while recording
+	 */
+	public void play(Game game,float secondsPerTick)
+	{
+		game.setPlayerInput( this );
+		game.startGame( replay.seed );
+		while ( ! isFinished() && game.getGameState() == GameState.PLAYING ) {
+			game.tick( secondsPerTick );
+		}
+	}
+}
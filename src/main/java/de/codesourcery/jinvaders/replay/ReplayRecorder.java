@@ -0,0 +1,84 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.replay;
+
+import java.util.Arrays;
+
+import de.codesourcery.jinvaders.util.IPlayerInput;
+
+/**
+ * Records the player input of the most recent game session.
+ *
+ * Wraps the actual input source and needs to be installed on the game
+ * using {@link de.codesourcery.jinvaders.Game#setPlayerInput(IPlayerInput)} before
+ * the session to record gets started.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ReplayRecorder implements IPlayerInput
+{
+	private final IPlayerInput delegate;
+
+	private boolean sessionStarted;
+	private long seed;
+	private byte[] inputs = new byte[ 4096 ];
+	private int tickCount;
+
+	public ReplayRecorder(IPlayerInput delegate)
+	{
+		if ( delegate == null ) {
+			throw new IllegalArgumentException("delegate must not be NULL");
+		}
+		this.delegate = delegate;
+	}
+
+	@Override
+	public int poll()
+	{
+		final int result = delegate.poll();
+		if ( sessionStarted )
+		{
+			if ( tickCount == inputs.length ) {
+				inputs = Arrays.copyOf( inputs , inputs.length*2 );
+			}
+			inputs[ tickCount++ ] = (byte) result;
+		}
+		return result;
+	}
+
+	@Override
+	public void sessionStarted(long seed)
+	{
+		delegate.sessionStarted( seed );
+		this.sessionStarted = true;
+		this.seed = seed;
+		this.tickCount = 0;
+	}
+
+	/**
+	 * Returns the recording of the current (or most recent) game session.
+	 *
+	 * @return
+	 * @throws IllegalStateException if no session has been started since this recorder was installed
+	 */
+	public Replay getReplay()
+	{
+		if ( ! sessionStarted ) {
+			throw new IllegalStateException("No game session recorded yet");
+		}
+		return new Replay( seed , inputs , tickCount );
+	}
+}
@@ -13,17 +13,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package de.codesourcery.jinvaders.particles;
+package de.codesourcery.jinvaders.sound;
 
-import de.codesourcery.jinvaders.graphics.Vec2df;
-
-public final class Particle
+public interface ISoundSystem
 {
-	public final Vec2df position=new Vec2df();
-	public final Vec2df acceleration=new Vec2df();
-	public final Vec2df velocity=new Vec2df();
-
-	public boolean isAlive;
-	public float lifetimeLeft;
-	public int color;
+	/**
+	 * Start playing a sound effect.
+	 *
+	 * If the maximum number of concurrently playing instances of this effect
+	 * has been reached, the request is silently dropped.
+	 *
+	 * @param effect
+	 */
+	public void play(SoundEffect effect);
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.sound;
+
+import java.io.IOException;
+import java.net.URL;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineUnavailableException;
+
+import jdk.jfr.EventType;
+
+import de.codesourcery.jinvaders.Main;
+import de.codesourcery.jinvaders.jfr.SoundPlaybackEvent;
+
+/**
+ * Sound system backed by <code>javax.sound</code> clips.
+ *
+ * All clips are opened eagerly when this class is instantiated.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class JavaSoundSystem implements ISoundSystem
+{
+	private static final EventType PLAYBACK_EVENT_TYPE = EventType.getEventType( SoundPlaybackEvent.class );
+
+	private final Clip[][] clips = new Clip[ SoundEffect.values().length ][];
+
+	private final int[] currentClipIdx = new int[ SoundEffect.values().length ];
+
+	public JavaSoundSystem()
+	{
+		for ( final SoundEffect effect : SoundEffect.values() )
+		{
+			final Clip[] instances = new Clip[ effect.concurrency ];
+			try
+			{
+				final URL url = Main.class.getResource(effect.soundFileName);
+				if ( url == null ) {
+					throw new RuntimeException("Failed to locate sound on classpath: '"+effect.soundFileName+"'");
+				}
+				for ( int i = 0 ; i < effect.concurrency ; i++ )
+				{
+					instances[i] = createClip( AudioSystem.getAudioInputStream(url) , effect.volume );
+				}
+			}
+			catch (final Exception e) {
+				throw new RuntimeException(e);
+			}
+			clips[ effect.ordinal() ] = instances;
+		}
+	}
+
+	private Clip createClip(AudioInputStream stream,Volume volume) throws LineUnavailableException, IOException
+	{
+		final Clip clip = AudioSystem.getClip();
+		clip.open( stream );
+
+		final FloatControl masterGain = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+
+		final float range = masterGain.getMaximum() - masterGain.getMinimum();
+		final float value = masterGain.getMinimum() + range*volume.gainPercentage;
+		masterGain.setValue( value );
+		return clip;
+	}
+
+	@Override
+	public void play(SoundEffect effect)
+	{
+		final int idx = effect.ordinal();
+		currentClipIdx[idx] = (currentClipIdx[idx]+1) % effect.concurrency;
+		final Clip clip = clips[idx][ currentClipIdx[idx] ];
+
+		final SoundPlaybackEvent event = PLAYBACK_EVENT_TYPE.isEnabled() ? new SoundPlaybackEvent() : null;
+		if ( event != null ) {
+			event.begin();
+		}
+
+		final boolean dropped = clip.isActive();
+		if ( ! dropped ) {
+			clip.setFramePosition(0);
+			clip.start();
+		}
+
+		if ( event != null )
+		{
+			event.end();
+			if ( event.shouldCommit() )
+			{
+				event.effect = effect.name();
+				event.dropped = dropped;
+				event.commit();
+			}
+		}
+	}
+}
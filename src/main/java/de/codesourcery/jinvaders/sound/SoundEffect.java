@@ -15,17 +15,14 @@
  */
 package de.codesourcery.jinvaders.sound;
 
-import java.io.IOException;
-import java.net.URL;
-
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.FloatControl;
-import javax.sound.sampled.LineUnavailableException;
-
-import de.codesourcery.jinvaders.Main;
-
+/**
+ * Sound effects used by the game.
+ *
+ * Playback is done through an {@link ISoundSystem}, this enum only describes
+ * the sample, volume and maximum number of concurrent instances.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
 public enum SoundEffect
 {
 	PLAYER_SHOOTING("/player_laser.wav",Volume.LOUD , 3),
@@ -35,51 +32,14 @@ public enum SoundEffect
 	WAVE_COMPLETED("/wave_completed.wav",Volume.LOUD, 1),
 	INVADER_DESTROYED("/invader_destroyed.wav",Volume.LOUD, 3);
 
-	private final Clip[] clips;
-
-	private final int concurrency; // maximum number of instances of this sound that may be playing at the same time
-	private int currentClipIdx;
+	public final String soundFileName;
+	public final Volume volume;
+	public final int concurrency; // maximum number of instances of this sound that may be playing at the same time
 
 	private SoundEffect(String soundFileName,Volume volume,int concurrency)
 	{
+		this.soundFileName = soundFileName;
+		this.volume = volume;
 		this.concurrency = concurrency;
-		this.clips = new Clip[ concurrency ];
-		try
-		{
-			final URL url = Main.class.getResource(soundFileName);
-			if ( url == null ) {
-				throw new RuntimeException("Failed to locate sound on classpath: '"+soundFileName+"'");
-			}
-			for ( int i = 0 ; i < concurrency ; i++ )
-			{
-				clips[i] = createClip( AudioSystem.getAudioInputStream(url) , volume );
-			}
-		}
-		catch (final Exception e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	private Clip createClip(AudioInputStream stream,Volume volume) throws LineUnavailableException, IOException
-	{
-		final Clip clip = AudioSystem.getClip();
-		clip.open( stream );
-
-		final FloatControl masterGain = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-
-		final float range = masterGain.getMaximum() - masterGain.getMinimum();
-		final float value = masterGain.getMinimum() + range*volume.gainPercentage;
-		masterGain.setValue( value );
-		return clip;
-	}
-
-	public void play()
-	{
-		currentClipIdx = (currentClipIdx+1) % concurrency;
-		final Clip clip = clips[ currentClipIdx ];
-		if ( ! clip.isActive() ) {
-			clip.setFramePosition(0);
-			clip.start();
-		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.util;
+
+/**
+ * Source of player input.
+ *
+ * Input is polled exactly once per simulation tick and encoded as a bit mask
+ * so that game sessions can be recorded and replayed.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public interface IPlayerInput
+{
+	public static final int MOVE_LEFT  = 1<<0;
+	public static final int MOVE_RIGHT = 1<<1;
+	public static final int FIRE       = 1<<2;
+
+	/**
+	 * Returns the player input for the current simulation tick.
+	 *
+	 * @return bit mask of {@link #MOVE_LEFT}, {@link #MOVE_RIGHT} and {@link #FIRE}
+	 */
+	public int poll();
+
+	/**
+	 * Invoked whenever a new game session starts.
+	 *
+	 * @param seed seed of the session's random number generator
+	 */
+	public default void sessionStarted(long seed) {
+	}
+}
@@ -20,17 +20,25 @@ import java.awt.event.KeyEvent;
 import java.util.HashSet;
 import java.util.Set;
 
-public final class KeyboardInput extends KeyAdapter
+public final class KeyboardInput extends KeyAdapter implements IPlayerInput
 {
 	private static final int MAX_KEYBOARD_BUFFER_SIZE = 255;
 
 	private final Set<Integer> PRESSED_KEYS = new HashSet<>();
+	// keys that went down since the last time wasPressed() was called for them
+	private final Set<Integer> KEY_PRESSES = new HashSet<>();
 	private final StringBuilder buffer = new StringBuilder();
 
 	// start: KeyAdapter methods
 	@Override
-	public void keyPressed(KeyEvent e) {
-		PRESSED_KEYS.add( e.getKeyCode() );
+	public void keyPressed(KeyEvent e)
+	{
+		if ( PRESSED_KEYS.add( e.getKeyCode() ) ) // ignore auto-repeat
+		{
+			synchronized(KEY_PRESSES) {
+				KEY_PRESSES.add( e.getKeyCode() );
+			}
+		}
 	}
 
 	@Override
@@ -54,11 +62,43 @@ public final class KeyboardInput extends KeyAdapter
 
 	// end: KeyAdapter methods
 
+	// start: IPlayerInput methods
+	@Override
+	public int poll()
+	{
+		int result = 0;
+		if ( isPressed( KeyEvent.VK_A ) ) {
+			result |= MOVE_LEFT;
+		}
+		if ( isPressed( KeyEvent.VK_D ) ) {
+			result |= MOVE_RIGHT;
+		}
+		if ( isPressed( KeyEvent.VK_SPACE ) ) {
+			result |= FIRE;
+		}
+		return result;
+	}
+	// end: IPlayerInput methods
+
 	public boolean isPressed(int keyCode)
 	{
 		return PRESSED_KEYS.contains( keyCode );
 	}
 
+	/**
+	 * Returns whether a key went down since the last time this method was called
+	 * for this key.
+	 *
+	 * @param keyCode
+	 * @return
+	 */
+	public boolean wasPressed(int keyCode)
+	{
+		synchronized(KEY_PRESSES) {
+			return KEY_PRESSES.remove( keyCode );
+		}
+	}
+
 	public void flushKeyboardBuffer()
 	{
 		synchronized(buffer)
@@ -66,6 +106,9 @@ public final class KeyboardInput extends KeyAdapter
 			buffer.setLength(0);
 			PRESSED_KEYS.clear();
 		}
+		synchronized(KEY_PRESSES) {
+			KEY_PRESSES.clear();
+		}
 	}
 
 	public int maybeReadKey()
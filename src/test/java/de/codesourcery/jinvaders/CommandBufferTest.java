@@ -0,0 +1,122 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.entity.ITickContext;
+import de.codesourcery.jinvaders.entity.Invader;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+public class CommandBufferTest extends TestCase {
+
+	private static final SpriteRepository SPRITES = new SpriteRepository();
+
+	private CommandBuffer buffer;
+	private final List<String> applied = new ArrayList<>();
+
+	private final CommandBuffer.ICommandTarget target = new CommandBuffer.ICommandTarget()
+	{
+		@Override
+		public void addEntity(Entity entity) {
+			applied.add( "add "+entity.getX() );
+		}
+
+		@Override
+		public void destroyEntity(Entity entity) {
+			applied.add( "destroy "+entity.getX() );
+		}
+
+		@Override
+		public void addTickListener(ITickListener listener) {
+			applied.add( "addListener" );
+			// queue another command while flushing
+			buffer.destroyEntity( invader( 3 ) );
+		}
+
+		@Override
+		public void removeTickListener(ITickListener listener) {
+			applied.add( "removeListener" );
+		}
+	};
+
+	private final ITickListener listener = new ITickListener() {
+		@Override
+		public void tick(ITickContext context) {
+		}
+	};
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		buffer = new CommandBuffer( 1 );
+		applied.clear();
+	}
+
+	private static Invader invader(int x) {
+		return new Invader( new Vec2d( x , 0 ) , Vec2d.ZERO , SPRITES.getSprite( SpriteImpl.INVADER ) );
+	}
+
+	public void testCommandsGetAppliedInOrder()
+	{
+		buffer.addEntity( invader( 1 ) );
+		buffer.removeTickListener( listener );
+		buffer.destroyEntity( invader( 2 ) );
+		assertEquals( 3 , buffer.size() );
+		assertTrue( applied.isEmpty() );
+
+		buffer.flush( target );
+		assertTrue( buffer.isEmpty() );
+		assertEquals( "[add 1, removeListener, destroy 2]" , applied.toString() );
+
+		buffer.flush( target );
+		assertEquals( 3 , applied.size() );
+	}
+
+	public void testCommandsQueuedWhileFlushingGetApplied()
+	{
+		buffer.addTickListener( listener );
+		buffer.addEntity( invader( 1 ) );
+		buffer.flush( target );
+		assertTrue( buffer.isEmpty() );
+		assertEquals( "[addListener, add 1, destroy 3]" , applied.toString() );
+	}
+
+	public void testClear()
+	{
+		buffer.addEntity( invader( 1 ) );
+		buffer.clear();
+		assertTrue( buffer.isEmpty() );
+		buffer.flush( target );
+		assertTrue( applied.isEmpty() );
+	}
+
+	public void testNullArgumentFails()
+	{
+		try {
+			buffer.addEntity( null );
+			fail("Should've failed");
+		} catch(IllegalArgumentException e) {
+			/* ok */
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.graphics.NullRenderer;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.headless.Autopilot;
+import de.codesourcery.jinvaders.headless.HeadlessSimulation;
+import de.codesourcery.jinvaders.particles.ScalarParticleKernel;
+import de.codesourcery.jinvaders.sound.NullSoundSystem;
+
+/**
+ * Makes sure that advancing the simulation does not allocate (much) once the game is in a steady state.
+ */
+public class GameAllocationTest extends TestCase {
+
+	// ticks to run before measuring, gives the JIT a chance to compile (and eliminate allocations)
+	private static final int WARMUP_TICKS = 30_000;
+
+	private static final int MEASURED_TICKS = 10_000;
+
+	// average number of bytes a tick may allocate, covers the occasional allocation
+	// when a new wave of invaders gets spawned or an invader starts flashing
+	private static final long MAX_BYTES_PER_TICK = 32;
+
+	public void testSteadyStateTicksDoNotAllocate()
+	{
+		if ( ! ( ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean ) ) {
+			return; // not supported by this JVM
+		}
+		final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if ( ! threadBean.isThreadAllocatedMemorySupported() ) {
+			return;
+		}
+		threadBean.setThreadAllocatedMemoryEnabled( true );
+		final long threadId = Thread.currentThread().getId();
+
+		final Game game = new Game( new NullRenderer() , new NullSoundSystem() , new SpriteRepository() , 42 );
+		// Vector API code allocates until C2 compiled it (again, after each deoptimization), which depends on JIT timing
+		game.setParticleKernel( new ScalarParticleKernel() );
+		game.setPlayerInput( new Autopilot() );
+		game.startGame( 42 );
+		game.player.lifes = 1_000_000; // keep playing
+
+		for ( int i = 0 ; i < WARMUP_TICKS ; i++ ) {
+			game.tick( HeadlessSimulation.SECONDS_PER_TICK );
+		}
+
+		final long allocatedBefore = threadBean.getThreadAllocatedBytes( threadId );
+		for ( int i = 0 ; i < MEASURED_TICKS ; i++ ) {
+			game.tick( HeadlessSimulation.SECONDS_PER_TICK );
+		}
+		final long allocated = threadBean.getThreadAllocatedBytes( threadId ) - allocatedBefore;
+
+		assertEquals( GameState.PLAYING , game.getGameState() );
+		final long bytesPerTick = allocated / MEASURED_TICKS;
+		assertTrue( "Ticks allocated "+bytesPerTick+" bytes on average, expected at most "+MAX_BYTES_PER_TICK , bytesPerTick <= MAX_BYTES_PER_TICK );
+	}
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.collision;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.Constants;
+import de.codesourcery.jinvaders.entity.Bullet;
+import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.entity.EntityState;
+import de.codesourcery.jinvaders.entity.Invader;
+import de.codesourcery.jinvaders.entity.Player;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+public class BroadphaseTest extends TestCase {
+
+	private static final SpriteRepository SPRITES = new SpriteRepository();
+
+	public void testEmpty()
+	{
+		for ( final BroadphaseType type : BroadphaseType.values() )
+		{
+			final List<Entity> result = new ArrayList<>();
+			type.create().findColliding( new ArrayList<>() , result );
+			assertTrue( result.isEmpty() );
+		}
+	}
+
+	public void testTouchingEdgesCollide()
+	{
+		final Player player = new Player( new Vec2d(100,200) , SPRITES.getSprite( SpriteImpl.PLAYER ) );
+		final Invader invader = new Invader( new Vec2d( player.right() , 200 ) , Vec2d.ZERO , SPRITES.getSprite( SpriteImpl.INVADER ) );
+		final List<Entity> entities = new ArrayList<>();
+		entities.add( player );
+		entities.add( invader );
+		assertSameAsBruteForce( entities , new UniformGrid( Constants.VIEWPORT , 1 ) );
+		for ( final BroadphaseType type : BroadphaseType.values() ) {
+			assertSameAsBruteForce( entities , type.create() );
+		}
+	}
+
+	public void testRandomScenes()
+	{
+		for ( final BroadphaseType type : BroadphaseType.values() )
+		{
+			final SplittableRandom rnd = new SplittableRandom( 0xcafebabe );
+			final IBroadphase broadphase = type.create();
+			for ( int scene = 0 ; scene < 200 ; scene++ )
+			{
+				final List<Entity> entities = randomScene( rnd , 1 + rnd.nextInt( 300 ) );
+				assertSameAsBruteForce( entities , broadphase );
+			}
+		}
+	}
+
+	public void testMovingEntities()
+	{
+		// make sure broadphases that keep state between invocations
+		// properly track moving, disappearing and new entities
+		for ( final BroadphaseType type : BroadphaseType.values() )
+		{
+			final SplittableRandom rnd = new SplittableRandom( 0xdeadbeef );
+			final IBroadphase broadphase = type.create();
+			final List<Entity> entities = randomScene( rnd , 200 );
+			for ( int tick = 0 ; tick < 100 ; tick++ )
+			{
+				for ( final Entity e : entities ) {
+					e.translate( rnd.nextInt( 11 ) - 5 , rnd.nextInt( 11 ) - 5 );
+				}
+				if ( entities.size() > 1 ) {
+					entities.remove( 1 + rnd.nextInt( entities.size() - 1 ) );
+				}
+				entities.addAll( randomScene( rnd , 1 ).subList( 1 , 2 ) );
+				if ( rnd.nextInt( 5 ) == 0 ) {
+					Collections.shuffle( entities.subList( 1 , entities.size() ) , new Random( rnd.nextLong() ) );
+				}
+				assertSameAsBruteForce( entities , broadphase );
+			}
+		}
+	}
+
+	private static List<Entity> randomScene(SplittableRandom rnd,int count)
+	{
+		// spawn slightly outside of the viewport as well
+		final Rectangle area = new Rectangle( Constants.VIEWPORT.x - 50 , Constants.VIEWPORT.y - 50 , Constants.VIEWPORT.width + 100 , Constants.VIEWPORT.height + 100 );
+
+		final List<Entity> result = new ArrayList<>();
+		final Player player = new Player( randomPosition( rnd , area ) , SPRITES.getSprite( SpriteImpl.PLAYER ) );
+		result.add( player );
+		Invader lastInvader = null;
+		for ( int i = 0 ; i < count ; i++ )
+		{
+			final Vec2d pos = randomPosition( rnd , area );
+			final Entity e;
+			switch( rnd.nextInt( 3 ) )
+			{
+				case 0:
+					lastInvader = new Invader( pos , Vec2d.ZERO , SPRITES.getSprite( SpriteImpl.INVADER ) );
+					e = lastInvader;
+					break;
+				case 1:
+					e = new Bullet( pos , new Vec2d( 0 , -Constants.PLAYER_BULLET_VELOCITY ) , player , SPRITES.getSprite( SpriteImpl.PLAYER_BULLET ) );
+					break;
+				default:
+					final Entity owner = lastInvader != null ? lastInvader : player;
+					e = new Bullet( pos , new Vec2d( 0 , Constants.INVADER_BULLET_VELOCITY ) , owner , SPRITES.getSprite( SpriteImpl.INVADER_BULLET ) );
+			}
+			if ( rnd.nextInt( 10 ) == 0 ) {
+				e.setState( EntityState.DYING );
+			}
+			result.add( e );
+		}
+		return result;
+	}
+
+	private static Vec2d randomPosition(SplittableRandom rnd,Rectangle area) {
+		return new Vec2d( area.x + rnd.nextInt( area.width ) , area.y + rnd.nextInt( area.height ) );
+	}
+
+	private static void assertSameAsBruteForce(List<Entity> entities,IBroadphase broadphase)
+	{
+		final List<Entity> expected = new ArrayList<>();
+		for ( final Entity e : entities ) {
+			if ( e.isAlive() && e.collidesWith( entities ) ) {
+				expected.add( e );
+			}
+		}
+
+		final List<Entity> actual = new ArrayList<>();
+		broadphase.findColliding( entities , actual );
+		assertEquals( expected , actual );
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.awt.Rectangle;
+import java.lang.reflect.Proxy;
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.graphics.IRenderer;
+import de.codesourcery.jinvaders.graphics.ImageHolder;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+public class BarricadeTest extends TestCase {
+
+	private static final SpriteRepository SPRITES = new SpriteRepository();
+
+	private static final Sprite BARRICADE = SPRITES.getSprite( SpriteImpl.BARRICADE );
+	private static final Sprite PLAYER_BULLET = SPRITES.getSprite( SpriteImpl.PLAYER_BULLET );
+	private static final Sprite INVADER_BULLET = SPRITES.getSprite( SpriteImpl.INVADER_BULLET );
+
+	private static final Vec2d POSITION = new Vec2d( 100 , 300 );
+
+	private Player player;
+	private Invader invader;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		player = new Player( new Vec2d( 0 , 0 ) , SPRITES.getSprite( SpriteImpl.PLAYER ) );
+		invader = new Invader( new Vec2d( 0 , 0 ) , Vec2d.ZERO , SPRITES.getSprite( SpriteImpl.INVADER ) );
+	}
+
+	public void testMissDoesNotErode()
+	{
+		final Barricade barricade = new Barricade( POSITION , BARRICADE );
+		final Bullet bullet = playerBullet( barricade.left() - 50 , barricade.top() );
+		assertFalse( barricade.hitBy( bullet ) );
+		assertImageMatchesMask( barricade );
+	}
+
+	public void testCopyOnWrite()
+	{
+		final Barricade barricade = new Barricade( POSITION , BARRICADE );
+		assertTrue( barricade.isPristine() );
+		assertSame( BARRICADE.image() , render( barricade ) );
+
+		assertTrue( barricade.hitBy( playerBullet( barricade.left() + 10 , barricade.bottom() - 5 ) ) );
+		assertFalse( barricade.isPristine() );
+		final ImageHolder copy = render( barricade );
+		assertNotSame( BARRICADE.image() , copy );
+		assertImageMatchesMask( barricade );
+
+		// shared image must not have been modified
+		final Barricade other = new Barricade( POSITION , BARRICADE );
+		assertImageMatchesMask( other );
+
+		barricade.repair();
+		assertTrue( barricade.isPristine() );
+		assertSame( BARRICADE.image() , render( barricade ) );
+		assertImageMatchesMask( barricade );
+
+		// private copy gets re-used and restored on the next hit
+		assertTrue( barricade.hitBy( invaderBullet( barricade.left() + 20 , barricade.top() - 5 ) ) );
+		assertSame( copy , render( barricade ) );
+		assertImageMatchesMask( barricade );
+	}
+
+	public void testErosionMatchesReferenceImplementation()
+	{
+		final SplittableRandom rnd = new SplittableRandom( 0x1234 );
+		for ( int run = 0 ; run < 20 ; run++ )
+		{
+			final Barricade barricade = new Barricade( POSITION , BARRICADE );
+			final ImageHolder reference = BARRICADE.image().createCopy();
+
+			for ( int shot = 0 ; shot < 100 ; shot++ )
+			{
+				final boolean up = rnd.nextBoolean();
+				final int x = barricade.left() - 10 + rnd.nextInt( barricade.getWidth() + 20 );
+				final int y = barricade.top() - 20 + rnd.nextInt( barricade.getHeight() + 40 );
+				final Bullet bullet = up ? playerBullet( x , y ) : invaderBullet( x , y );
+
+				assertEquals( referenceHitBy( barricade , reference , bullet ) , barricade.hitBy( bullet ) );
+				if ( rnd.nextInt( 5 ) == 0 ) {
+					assertImageMatchesMask( barricade );
+				}
+			}
+			for ( int y = 0 ; y < reference.getHeight() ; y++ ) {
+				for ( int x = 0 ; x < reference.getWidth() ; x++ ) {
+					assertEquals( "Mismatch at "+x+","+y , ( reference.getRGB( x , y ) & 0xffffff ) != 0 , barricade.isIntact( x , y ) );
+				}
+			}
+			assertImageMatchesMask( barricade );
+		}
+	}
+
+	private Bullet playerBullet(int x,int y) {
+		return new Bullet( new Vec2d( x , y ) , new Vec2d( 0 , -4 ) , player , PLAYER_BULLET );
+	}
+
+	private Bullet invaderBullet(int x,int y) {
+		return new Bullet( new Vec2d( x , y ) , new Vec2d( 0 , 4 ) , invader , INVADER_BULLET );
+	}
+
+	private static ImageHolder render(Barricade barricade)
+	{
+		final ImageHolder[] rendered = { null };
+		final IRenderer renderer = (IRenderer) Proxy.newProxyInstance( BarricadeTest.class.getClassLoader() , new Class<?>[] { IRenderer.class } , (proxy,method,args) ->
+		{
+			if ( method.getName().equals("renderImage") ) {
+				rendered[0] = (ImageHolder) args[0];
+			}
+			return null;
+		});
+		barricade.render( renderer , 0 );
+		return rendered[0];
+	}
+
+	private static void assertImageMatchesMask(Barricade barricade)
+	{
+		final ImageHolder image = render( barricade );
+		for ( int y = 0 ; y < image.getHeight() ; y++ ) {
+			for ( int x = 0 ; x < image.getWidth() ; x++ ) {
+				assertEquals( "Mismatch at "+x+","+y , ( image.getRGB( x , y ) & 0xffffff ) != 0 , barricade.isIntact( x , y ) );
+			}
+		}
+	}
+
+	/*
+	 * How Barricade#hitBy() used to be implemented (operating directly on the image).
+	 */
+	private static boolean referenceHitBy(Barricade barricade,ImageHolder sprite,Bullet entity)
+	{
+		if ( ! barricade.collides( entity) ) {
+			return false;
+		}
+
+		final Vec2d position = new Vec2d( barricade.getX() , barricade.getY() );
+		final Rectangle r1 = new Rectangle(position.x,position.y,barricade.getWidth(),barricade.getHeight());
+		final Rectangle r2 = new Rectangle(entity.getX(),entity.getY(),entity.getWidth(),entity.getHeight());
+
+		final Rectangle intersection = r1.intersection(r2);
+		if ( intersection.isEmpty() ) {
+			return false;
+		}
+
+		final int yIncrement;
+		final int yStart;
+		if ( entity.isMovingDown() )
+		{
+			yIncrement=1;
+			yStart = intersection.y - position.y;
+		} else {
+			yIncrement=-1;
+			yStart = intersection.y + intersection.height - position.y - 1;
+		}
+
+		boolean pixelsHit=false;
+
+		final int xStart = intersection.x - position.x;
+		final int xEnd = intersection.x + intersection.width - position.x;
+
+		int rowsRemoved = 0;
+		for ( int y = yStart ; y >= 0 && y < sprite.getHeight() & rowsRemoved < 3 ; y += yIncrement )
+		{
+			for ( int x = xStart ; x < xEnd ; x++ )
+			{
+				final int rgb = sprite.getRGB( x ,y ) & 0x00ffffff;
+				if ( rgb != 0 ) {
+					pixelsHit=true;
+					sprite.setRGB( x , y , 0 );
+				}
+			}
+			if ( pixelsHit ) {
+				rowsRemoved++;
+			}
+		}
+		return pixelsHit;
+	}
+}
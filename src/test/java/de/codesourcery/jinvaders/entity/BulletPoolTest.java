@@ -0,0 +1,126 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+public class BulletPoolTest extends TestCase {
+
+	private static final SpriteRepository SPRITES = new SpriteRepository();
+	private static final Sprite PLAYER_BULLET = SPRITES.getSprite( SpriteImpl.PLAYER_BULLET );
+	private static final Sprite INVADER_BULLET = SPRITES.getSprite( SpriteImpl.INVADER_BULLET );
+
+	private BulletPool pool;
+	private EntityStore store;
+	private Player player;
+	private Invader invader;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		pool = new BulletPool( 1 );
+		store = new EntityStore();
+		player = new Player( new Vec2d( 100 , 400 ) , SPRITES.getSprite( SpriteImpl.PLAYER ) );
+		invader = new Invader( new Vec2d( 100 , 100 ) , Vec2d.ZERO , SPRITES.getSprite( SpriteImpl.INVADER ) );
+		store.add( player );
+		store.add( invader );
+	}
+
+	private Bullet fire(Entity owner,int x,int y)
+	{
+		final Sprite sprite = owner.isPlayer() ? PLAYER_BULLET : INVADER_BULLET;
+		final Bullet bullet = pool.acquire( x , y , 0 , owner.isPlayer() ? -4 : 4 , owner , sprite );
+		store.add( bullet );
+		if ( owner.isPlayer() ) {
+			player.playerBulletsInFlight++;
+		}
+		return bullet;
+	}
+
+	private void dispose(Bullet bullet)
+	{
+		store.remove( bullet );
+		bullet.onDispose();
+	}
+
+	public void testBulletsAreReused()
+	{
+		final Bullet b1 = fire( player , 10 , 20 );
+		final Bullet b2 = fire( player , 30 , 40 );
+		assertNotSame( b1 , b2 );
+		assertEquals( 2 , pool.getCreatedCount() );
+
+		dispose( b1 );
+		dispose( b2 );
+		assertEquals( 2 , pool.getAvailableCount() );
+		assertEquals( 0 , player.playerBulletsInFlight );
+
+		for ( int i = 0 ; i < 100 ; i++ )
+		{
+			final Bullet b = fire( player , i , i );
+			assertTrue( b == b1 || b == b2 );
+			dispose( b );
+		}
+		assertEquals( 2 , pool.getCreatedCount() );
+	}
+
+	public void testReusedBulletIsReset()
+	{
+		final Bullet bullet = fire( player , 10 , 20 );
+		bullet.setState( EntityState.DEAD );
+		dispose( bullet );
+
+		final Bullet reused = fire( invader , 50 , 60 );
+		assertSame( bullet , reused );
+		assertTrue( reused.isAlive() );
+		assertEquals( 50 , reused.getX() );
+		assertEquals( 60 , reused.getY() );
+		assertEquals( 50 , reused.interpolatedX( 0 ) );
+		assertEquals( 4 , reused.getVelocityY() );
+		assertEquals( INVADER_BULLET.size().width() , reused.getWidth() );
+		assertEquals( INVADER_BULLET.size().height() , reused.getHeight() );
+		assertSame( INVADER_BULLET , reused.getSprite() );
+		assertSame( invader , reused.getOwner() );
+		assertFalse( reused.isShotByPlayer() );
+	}
+
+	public void testDisposingTwiceReleasesOnce()
+	{
+		final Bullet bullet = fire( player , 10 , 20 );
+		dispose( bullet );
+		bullet.onDispose();
+
+		assertEquals( 1 , pool.getAvailableCount() );
+		assertEquals( 0 , player.playerBulletsInFlight );
+	}
+
+	public void testCannotReuseBulletThatIsStillInStore()
+	{
+		final Bullet bullet = fire( player , 10 , 20 );
+		bullet.onDispose(); // but still part of the store
+		try {
+			fire( player , 10 , 20 );
+			fail("Should've failed");
+		} catch(final IllegalStateException e) {
+			// ok
+		}
+	}
+}
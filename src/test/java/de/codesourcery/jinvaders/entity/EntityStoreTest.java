@@ -0,0 +1,210 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.graphics.IRenderer;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+public class EntityStoreTest extends TestCase {
+
+	private static final SpriteRepository SPRITES = new SpriteRepository();
+	private static final Sprite BULLET = SPRITES.getSprite( SpriteImpl.PLAYER_BULLET );
+
+	private Player player;
+	private EntityStore store;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		player = new Player( new Vec2d( 100 , 400 ) , SPRITES.getSprite( SpriteImpl.PLAYER ) );
+		store = new EntityStore( 1 );
+	}
+
+	private Bullet bullet(int x,int y) {
+		return new Bullet( new Vec2d( x , y ) , new Vec2d( 0 , -4 ) , player , BULLET );
+	}
+
+	public void testEntityIsViewOnStore()
+	{
+		final Bullet bullet = bullet( 10 , 20 );
+		store.add( bullet );
+		store.add( player );
+		assertEquals( 2 , store.size() );
+
+		assertEquals( 10 , store.posX[ bullet.index ] );
+		bullet.setPosition( 30 , 40 );
+		assertEquals( 30 , store.posX[ bullet.index ] );
+		assertEquals( 40 , store.posY[ bullet.index ] );
+
+		store.integrate();
+		assertEquals( 30 , bullet.getX() );
+		assertEquals( 36 , bullet.getY() );
+		assertEquals( 100 , player.getX() );
+
+		// data survives removal
+		bullet.setState( EntityState.DYING );
+		assertTrue( store.remove( bullet ) );
+		assertFalse( store.remove( bullet ) );
+		assertEquals( 36 , bullet.getY() );
+		assertEquals( -4 , bullet.getVelocityY() );
+		assertTrue( bullet.isDying() );
+	}
+
+	public void testSwapRemove()
+	{
+		final Bullet b1 = bullet( 1 , 1 );
+		final Bullet b2 = bullet( 2 , 2 );
+		final Bullet b3 = bullet( 3 , 3 );
+		store.add( b1 );
+		store.add( b2 );
+		store.add( b3 );
+
+		store.remove( b1 );
+		assertEquals( 2 , store.size() );
+		assertSame( b3 , store.get( 0 ) );
+		assertSame( b2 , store.get( 1 ) );
+		assertEquals( 3 , b3.getX() );
+		assertEquals( 2 , b2.getX() );
+		assertEquals( Arrays.asList( b3 , b2 ) , store.asList() );
+	}
+
+	public void testRemoveDead()
+	{
+		store.add( player );
+		final Bullet b1 = bullet( 1 , 1 );
+		final Bullet b2 = bullet( 2 , 2 );
+		store.add( b1 );
+		store.add( b2 );
+		player.playerBulletsInFlight = 2;
+
+		b2.setState( EntityState.DEAD );
+		store.removeDead();
+
+		assertEquals( 2 , store.size() );
+		assertSame( b1 , store.get( 1 ) );
+		assertEquals( 1 , player.playerBulletsInFlight ); // onDispose() got called
+	}
+
+	public void testFindOffScreenAndCount()
+	{
+		final Rectangle r = new Rectangle( 0 , 0 , 100 , 100 );
+		final Bullet inside = bullet( 50 , 50 );
+		final Bullet outside = bullet( 50 , -100 );
+		store.add( inside );
+		store.add( outside );
+		store.add( player );
+
+		final List<Entity> result = new ArrayList<>();
+		store.findOffScreen( r , result );
+		assertEquals( 2 , result.size() );
+		assertTrue( result.contains( outside ) );
+		assertTrue( result.contains( player ) );
+		for ( final Entity e : store.asList() ) {
+			assertEquals( e.isOffScreen( r ) , result.contains( e ) );
+		}
+
+		assertEquals( 2 , store.count( EntityType.BULLET ) );
+		assertEquals( 1 , store.count( EntityType.PLAYER ) );
+		assertEquals( 0 , store.count( EntityType.INVADER ) );
+	}
+
+	public void testHandles()
+	{
+		assertEquals( EntityStore.NULL_HANDLE , player.getHandle() );
+		assertNull( store.resolve( EntityStore.NULL_HANDLE ) );
+
+		final Bullet b1 = bullet( 1 , 1 );
+		final Bullet b2 = bullet( 2 , 2 );
+		store.add( player );
+		store.add( b1 );
+		store.add( b2 );
+		final long h1 = b1.getHandle();
+		final long h2 = b2.getHandle();
+		assertSame( player , store.resolve( player.getHandle() ) );
+		assertSame( b1 , store.resolve( h1 ) );
+		assertSame( b2 , store.resolve( h2 ) );
+
+		// handles survive other entities being moved around
+		store.remove( player );
+		assertFalse( store.isValid( player.getHandle() ) );
+		assertSame( b1 , store.resolve( h1 ) );
+		assertSame( b2 , store.resolve( h2 ) );
+
+		// re-used slots get a new generation
+		store.remove( b1 );
+		store.add( b1 );
+		assertNull( store.resolve( h1 ) );
+		assertSame( b1 , store.resolve( b1.getHandle() ) );
+		assertFalse( h1 == b1.getHandle() );
+
+		store.clear();
+		assertNull( store.resolve( b1.getHandle() ) );
+		assertNull( store.resolve( h2 ) );
+	}
+
+	public void testBulletDoesNotReachRemovedOwner()
+	{
+		store.add( player );
+		final Bullet bullet = bullet( 1 , 1 );
+		store.add( bullet );
+		assertSame( player , bullet.getOwner() );
+		assertTrue( bullet.isShotByPlayer() );
+
+		store.remove( player );
+		assertNull( bullet.getOwner() );
+		assertTrue( bullet.isShotByPlayer() );
+		player.playerBulletsInFlight = 1;
+		bullet.onDispose();
+		assertEquals( 1 , player.playerBulletsInFlight );
+	}
+
+	public void testAddingWhileTickingFails()
+	{
+		final Bullet spawned = bullet( 1 , 1 );
+		store.add( new Entity( new Vec2d( 0 , 0 ) , Vec2d.ZERO , new Vec2d( 1 , 1 ) )
+		{
+			@Override
+			public void tick(ITickContext ctx) {
+				store.add( spawned );
+			}
+
+			@Override
+			public void render(IRenderer graphics, float alpha) {
+			}
+		});
+		try {
+			store.tick( null );
+			fail("Should've failed");
+		} catch(IllegalStateException e) {
+			/* ok */
+		}
+		assertEquals( 1 , store.size() );
+
+		// store is usable again afterwards
+		store.add( spawned );
+		assertEquals( 2 , store.size() );
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.graphics.Sprite;
+import de.codesourcery.jinvaders.graphics.SpriteImpl;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.graphics.Vec2d;
+
+public class InvaderFormationTest extends TestCase {
+
+	private static final Sprite SPRITE = new SpriteRepository().getSprite( SpriteImpl.INVADER );
+
+	private InvaderFormation formation;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		formation = new InvaderFormation( 2 , 3 , 2 );
+		for ( int column = 0 ; column < 2 ; column++ )
+		{
+			for ( int row = 0 ; row < 3 ; row++ ) {
+				formation.spawn( new Vec2d( 100 + column*48 , 100 + row*48 ) , SPRITE , column , row );
+			}
+		}
+	}
+
+	public void testOnlyBottomRowMayFire()
+	{
+		for ( int column = 0 ; column < 2 ; column++ )
+		{
+			assertFalse( formation.isBottomMost( formation.getInvader( column , 0 ) ) );
+			assertFalse( formation.isBottomMost( formation.getInvader( column , 1 ) ) );
+			assertTrue( formation.isBottomMost( formation.getInvader( column , 2 ) ) );
+		}
+	}
+
+	public void testBottomMostUpdatedOnDeath()
+	{
+		destroy( 0 , 2 );
+		assertFalse( formation.isBottomMost( formation.getInvader( 0 , 2 ) ) );
+		assertTrue( formation.isBottomMost( formation.getInvader( 0 , 1 ) ) );
+		assertTrue( formation.isBottomMost( formation.getInvader( 1 , 2 ) ) );
+
+		// destroying an invader that is not the bottom-most one changes nothing
+		destroy( 0 , 0 );
+		assertTrue( formation.isBottomMost( formation.getInvader( 0 , 1 ) ) );
+
+		// skip dead invaders
+		destroy( 0 , 1 );
+		for ( int row = 0 ; row < 3 ; row++ ) {
+			assertFalse( formation.isBottomMost( formation.getInvader( 0 , row ) ) );
+		}
+	}
+
+	public void testCannotSpawnTwiceAtSamePosition()
+	{
+		try {
+			formation.spawn( new Vec2d( 100 , 100 ) , SPRITE , 0 , 0 );
+			fail("Should've failed");
+		} catch(final IllegalArgumentException e) {
+			// ok
+		}
+	}
+
+	public void testBoundingBox()
+	{
+		assertEquals( 6 , formation.size() );
+		assertEquals( 100 , formation.left() );
+		assertEquals( 148 + SPRITE.size().width() , formation.right() );
+		assertEquals( 100 , formation.top() );
+		assertEquals( 196 + SPRITE.size().height() , formation.bottom() );
+
+		// bounding box follows movement
+		formation.move( 0 );
+		assertEquals( 102 , formation.left() );
+
+		// removing an invader does not shrink the box as long as
+		// there are other invaders in the same row/column
+		remove( 0 , 0 );
+		assertEquals( 102 , formation.left() );
+		assertEquals( 100 , formation.top() );
+
+		remove( 0 , 1 );
+		remove( 0 , 2 );
+		assertEquals( 150 , formation.left() );
+
+		remove( 1 , 0 );
+		assertEquals( 148 , formation.top() );
+		remove( 1 , 2 );
+		assertEquals( 148 + SPRITE.size().height() , formation.bottom() );
+		assertEquals( 1 , formation.size() );
+
+		// removing twice is harmless
+		remove( 1 , 1 );
+		assertTrue( formation.isEmpty() );
+	}
+
+	public void testFlipReversesDirectionAndDrops()
+	{
+		formation.flip( 42 );
+		assertEquals( -2 , formation.getVelocity().x );
+		assertTrue( formation.isDropping( 42 ) );
+		assertFalse( formation.isDropping( 43 ) );
+
+		formation.move( 42 );
+		assertEquals( 98 , formation.left() );
+		assertEquals( 102 , formation.top() );
+
+		// drop only happens once
+		formation.move( 43 );
+		assertEquals( 96 , formation.left() );
+		assertEquals( 102 , formation.top() );
+	}
+
+	public void testInvadersHaveNoVelocityOfTheirOwn()
+	{
+		formation.flip( 42 );
+		formation.forEach( invader -> assertEquals( 0 , invader.getVelocityX() ) );
+		formation.forEach( invader -> assertEquals( 0 , invader.getVelocityY() ) );
+	}
+
+	private void remove(int column,int row)
+	{
+		final Invader invader = formation.getInvader( column , row );
+		if ( invader != null ) {
+			invader.onDispose();
+			invader.onDispose();
+		}
+	}
+
+	private void destroy(int column,int row)
+	{
+		final Invader invader = formation.getInvader( column , row );
+		invader.setState( EntityState.DYING );
+		formation.invaderDestroyed( invader );
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.entity;
+
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.particles.ParticlePool;
+
+public class ParticleSystemPoolTest extends TestCase {
+
+	private ParticlePool particlePool;
+	private ParticleSystemPool pool;
+	private SplittableRandom rnd;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		particlePool = new ParticlePool( 200 , 20 );
+		pool = new ParticleSystemPool( particlePool , 100 , 0.6f );
+		rnd = new SplittableRandom( 42 );
+	}
+
+	public void testAcquireFullQuality()
+	{
+		final ParticleSystem system = pool.acquire( 10 , 20 , rnd );
+		assertEquals( 100 , particlePool.getUsedCount() );
+
+		system.onDispose();
+		assertEquals( 0 , particlePool.getUsedCount() );
+		assertEquals( 1 , pool.getAvailableCount() );
+	}
+
+	public void testAcquireWithFewerParticles()
+	{
+		final ParticleSystem system = pool.acquire( 10 , 20 , 40 , 0.3f , rnd );
+		assertEquals( 40 , particlePool.getUsedCount() );
+		system.onDispose();
+		assertEquals( 0 , particlePool.getUsedCount() );
+
+		// pooled system can be used at full quality again
+		final ParticleSystem reused = pool.acquire( 10 , 20 , rnd );
+		assertSame( system , reused );
+		assertEquals( 100 , particlePool.getUsedCount() );
+		assertEquals( 1 , pool.getCreatedCount() );
+	}
+
+	public void testAcquireMoreThanMaxParticlesFails()
+	{
+		try {
+			pool.acquire( 10 , 20 , 101 , 0.6f , rnd );
+			fail("Should have failed");
+		} catch(final IllegalArgumentException e) {
+			// ok
+		}
+		assertEquals( 0 , particlePool.getUsedCount() );
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.Constants;
+
+public class AWTRendererTest extends TestCase {
+
+	private static final int WIDTH = Constants.SCREEN_SIZE.width;
+	private static final int HEIGHT = Constants.SCREEN_SIZE.height;
+
+	private AWTRenderer renderer;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		renderer = new AWTRenderer();
+		renderer.initialize( null ); // no component, renders to an off-screen buffer
+		renderer.clearScreen();
+	}
+
+	private BufferedImage screen()
+	{
+		final BufferedImage image = new BufferedImage( WIDTH , HEIGHT , BufferedImage.TYPE_INT_RGB );
+		final Graphics2D graphics = image.createGraphics();
+		renderer.end( graphics );
+		graphics.dispose();
+		return image;
+	}
+
+	private static int countLitPixels(BufferedImage image)
+	{
+		int count = 0;
+		for ( int y = 0 ; y < image.getHeight() ; y++ ) {
+			for ( int x = 0 ; x < image.getWidth() ; x++ ) {
+				if ( ( image.getRGB( x , y ) & 0xffffff ) != 0 ) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	public void testRenderPoints()
+	{
+		final int[] xy = { 0 , 0 , 10 , 20 , WIDTH-1 , HEIGHT-1 , 99 , 99 };
+		renderer.renderPoints( xy , 3 , 0xee0000 );
+
+		final BufferedImage image = screen();
+		assertEquals( 0xee0000 , image.getRGB( 0 , 0 ) & 0xffffff );
+		assertEquals( 0xee0000 , image.getRGB( 10 , 20 ) & 0xffffff );
+		assertEquals( 0xee0000 , image.getRGB( WIDTH-1 , HEIGHT-1 ) & 0xffffff );
+		// only 'count' points get rendered
+		assertEquals( 3 , countLitPixels( image ) );
+	}
+
+	public void testPointsOutsideOfScreenAreClipped()
+	{
+		final int[] xy = { -1 , 0 , 0 , -1 , WIDTH , 0 , 0 , HEIGHT , Integer.MIN_VALUE , Integer.MAX_VALUE , 5 , 5 };
+		renderer.renderPoints( xy , xy.length/2 , 0x00ff00 );
+
+		final BufferedImage image = screen();
+		assertEquals( 0x00ff00 , image.getRGB( 5 , 5 ) & 0xffffff );
+		assertEquals( 1 , countLitPixels( image ) );
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.graphics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.entity.Entity;
+
+public class RenderQueueTest extends TestCase {
+
+	private RenderQueue queue;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		queue = new RenderQueue();
+	}
+
+	private static Entity entity(int id,int priority)
+	{
+		return new Entity( new Vec2d( id , 0 ) , Vec2d.ZERO , new Vec2d( 1 , 1 ) )
+		{
+			@Override
+			public int getRenderingPriority() {
+				return priority;
+			}
+
+			@Override
+			public void render(IRenderer graphics, float alpha) {
+			}
+		};
+	}
+
+	private List<Entity> drain()
+	{
+		final List<Entity> result = new ArrayList<>();
+		for ( int i = 0 ; i < queue.size() ; i++ ) {
+			result.add( queue.get(i) );
+		}
+		return result;
+	}
+
+	private static List<Entity> sorted(List<Entity> entities)
+	{
+		final List<Entity> result = new ArrayList<>( entities );
+		result.sort( null );
+		return result;
+	}
+
+	public void testOrderMatchesStableSort()
+	{
+		final List<Entity> entities = Arrays.asList( entity(0,2) , entity(1,0) , entity(2,-1) , entity(3,2) , entity(4,0) , entity(5,1) );
+		queue.fill( entities );
+
+		assertEquals( 6 , queue.size() );
+		assertEquals( sorted( entities ) , drain() );
+		// source list is left alone
+		assertEquals( 0 , entities.get(0).getX() );
+	}
+
+	public void testSamePriority()
+	{
+		final List<Entity> entities = new ArrayList<>();
+		for ( int i = 0 ; i < 100 ; i++ ) {
+			entities.add( entity(i,3) );
+		}
+		queue.fill( entities );
+		assertEquals( entities , drain() );
+	}
+
+	public void testWidelySpreadPriorities()
+	{
+		final List<Entity> entities = Arrays.asList( entity(0,Integer.MAX_VALUE) , entity(1,0) , entity(2,Integer.MIN_VALUE) , entity(3,0) );
+		queue.fill( entities );
+		assertEquals( sorted( entities ) , drain() );
+	}
+
+	public void testTwoLists()
+	{
+		final List<Entity> entities = Arrays.asList( entity(0,2) , entity(1,0) , entity(2,1) );
+		final List<Entity> moreEntities = Arrays.asList( entity(3,0) , entity(4,3) , entity(5,1) );
+		queue.fill( entities , moreEntities );
+
+		final List<Entity> all = new ArrayList<>( entities );
+		all.addAll( moreEntities );
+		assertEquals( 6 , queue.size() );
+		assertEquals( sorted( all ) , drain() );
+	}
+
+	public void testRefillAndClear()
+	{
+		queue.fill( Arrays.asList( entity(0,1) , entity(1,0) ) );
+		queue.fill( Arrays.asList( entity(2,0) ) );
+		assertEquals( 1 , queue.size() );
+		assertEquals( 2 , queue.get(0).getX() );
+
+		queue.clear();
+		assertEquals( 0 , queue.size() );
+		queue.fill( new ArrayList<>() );
+		assertEquals( 0 , queue.size() );
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.headless;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.GameState;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+
+/**
+ * Smoke tests for running games without a display, sound card or keyboard.
+ */
+public class HeadlessSimulationTest extends TestCase {
+
+	public void testSimulationAdvances()
+	{
+		final HeadlessSimulation simulation = new HeadlessSimulation( new SpriteRepository() , 42 );
+		assertEquals( GameState.PLAYING , simulation.game.getGameState() );
+		final long invadersBefore = invaderCount( simulation.game );
+
+		// the first game may end before long, so stop as soon as the autopilot hit something
+		while ( simulation.game.player.score == 0 && simulation.getTicksSimulated() < 1000 ) {
+			simulation.runTicks( 1 );
+		}
+		assertTrue( "Player did not score" , simulation.game.player.score > 0 );
+		assertTrue( invaderCount( simulation.game ) < invadersBefore );
+	}
+
+	public void testNewGameStartedWhenGameEnds()
+	{
+		final HeadlessSimulation simulation = new HeadlessSimulation( new SpriteRepository() , 42 );
+
+		// the autopilot loses a game after roughly 1000 ticks
+		simulation.runTicks( 10_000 );
+
+		assertEquals( 10_000 , simulation.getTicksSimulated() );
+		assertTrue( "No game ended" , simulation.getGamesPlayed() > 0 );
+		assertEquals( GameState.PLAYING , simulation.game.getGameState() );
+	}
+
+	public void testRenderingWithNullRenderer()
+	{
+		final HeadlessSimulation simulation = new HeadlessSimulation( new SpriteRepository() , 42 );
+		for ( int i = 0 ; i < 100 ; i++ )
+		{
+			simulation.runTicks( 1 );
+			simulation.game.renderFrame( 0.5f );
+		}
+		assertEquals( 100 , simulation.getTicksSimulated() );
+	}
+
+	private static long invaderCount(Game game) {
+		return game.entities.asList().stream().filter( e -> e.isInvader() && e.isAlive() ).count();
+	}
+}
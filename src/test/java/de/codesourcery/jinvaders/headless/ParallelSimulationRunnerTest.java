@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.headless;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+
+public class ParallelSimulationRunnerTest extends TestCase {
+
+	private static final long SEED = 4711;
+	private static final int GAME_COUNT = 3;
+	private static final int TICKS_PER_GAME = 3000;
+
+	public void testParallelRunMatchesSequentialRun() throws Exception
+	{
+		final ParallelSimulationRunner runner = new ParallelSimulationRunner( GAME_COUNT , 3 , SEED );
+		final ParallelSimulationRunner.Result result;
+		try {
+			// small batches so games get moved between worker threads a lot
+			result = runner.run( TICKS_PER_GAME , 100 );
+		} finally {
+			runner.shutdown();
+		}
+		assertEquals( GAME_COUNT , result.gameCount );
+		assertEquals( GAME_COUNT * TICKS_PER_GAME , result.totalTicks );
+
+		final SpriteRepository sprites = new SpriteRepository();
+		for ( int i = 0 ; i < GAME_COUNT ; i++ )
+		{
+			final HeadlessSimulation sequential = new HeadlessSimulation( sprites , SEED + i );
+			sequential.runTicks( TICKS_PER_GAME );
+
+			final HeadlessSimulation parallel = runner.getSimulations().get(i);
+			assertEquals( sequential.getTicksSimulated() , parallel.getTicksSimulated() );
+			assertEquals( sequential.getGamesPlayed() , parallel.getGamesPlayed() );
+			assertEquals( "Game "+i+" differs" , fingerprint( sequential.game ) , fingerprint( parallel.game ) );
+		}
+	}
+
+	private static String fingerprint(Game game)
+	{
+		final StringBuilder result = new StringBuilder();
+		result.append( "state=" ).append( game.getGameState() )
+		.append( ",score=" ).append( game.player.score )
+		.append( ",lifes=" ).append( game.player.lifes )
+		.append( ",difficulty=" ).append( game.difficulty );
+		for ( final Entity e : game.entities.asList() ) {
+			result.append( "\n" ).append( e.getClass().getSimpleName() ).append( e.getX() ).append( ',' ).append( e.getY() );
+		}
+		return result.toString();
+	}
+}
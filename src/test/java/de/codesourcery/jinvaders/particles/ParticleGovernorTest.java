@@ -0,0 +1,155 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+import junit.framework.TestCase;
+
+public class ParticleGovernorTest extends TestCase {
+
+	private static final long FRAME_BUDGET = 1_000_000;
+	private static final long IDLE = FRAME_BUDGET / 10;
+	private static final long OVERLOADED = FRAME_BUDGET * 2;
+
+	private static final int MAX_PARTICLES = 1000;
+
+	private ParticleGovernor governor;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		governor = new ParticleGovernor( FRAME_BUDGET , MAX_PARTICLES );
+	}
+
+	private void update(long frameNanos,int times)
+	{
+		for ( int i = 0 ; i < times ; i++ ) {
+			governor.update( frameNanos );
+		}
+	}
+
+	public void testFullQualityWhenIdle()
+	{
+		update( IDLE , 100 );
+
+		assertEquals( 0 , governor.getDegradationLevel() );
+		assertEquals( MAX_PARTICLES , governor.getParticleBudget() );
+		assertEquals( 100 , governor.getParticleCount( 100 , 0 ) );
+		assertEquals( 0.6f , governor.getLifeTime( 0.6f ) );
+		assertEquals( 0.1f , governor.getLoad() , 0.01f );
+	}
+
+	public void testDegradesUnderLoad()
+	{
+		update( OVERLOADED , 200 );
+
+		assertEquals( ParticleGovernor.MAX_LEVEL , governor.getDegradationLevel() );
+		assertEquals( MAX_PARTICLES / 5 , governor.getParticleBudget() );
+		assertEquals( ParticleGovernor.MIN_PARTICLES_PER_EFFECT , governor.getParticleCount( 100 , 0 ) );
+		assertTrue( governor.getLifeTime( 0.6f ) < 0.6f );
+	}
+
+	public void testDegradesOneLevelAtATime()
+	{
+		int previousLevel = 0;
+		int updatesAtLevel = 0;
+		for ( int i = 0 ; i < 200 ; i++ )
+		{
+			governor.update( OVERLOADED );
+			final int level = governor.getDegradationLevel();
+			if ( level != previousLevel )
+			{
+				assertEquals( previousLevel + 1 , level );
+				assertTrue( "Level changed after "+updatesAtLevel+" updates" , updatesAtLevel >= 5 );
+				updatesAtLevel = 0;
+			} else {
+				updatesAtLevel++;
+			}
+			previousLevel = level;
+		}
+	}
+
+	public void testRecoversSlowly()
+	{
+		update( OVERLOADED , 200 );
+		assertEquals( ParticleGovernor.MAX_LEVEL , governor.getDegradationLevel() );
+
+		// a short dip does not restore full quality right away
+		update( IDLE , 30 );
+		assertEquals( ParticleGovernor.MAX_LEVEL , governor.getDegradationLevel() );
+
+		update( IDLE , 1000 );
+		assertEquals( 0 , governor.getDegradationLevel() );
+		assertEquals( 100 , governor.getParticleCount( 100 , 0 ) );
+	}
+
+	public void testBurstIsLimitedByBudget()
+	{
+		// a whole bunch of invaders exploding at once
+		int liveParticles = 0;
+		for ( int i = 0 ; i < 15 ; i++ )
+		{
+			final int count = governor.getParticleCount( 100 , liveParticles );
+			if ( i < 10 ) {
+				assertEquals( 100 , count );
+			} else {
+				// budget exhausted, effects get skipped
+				assertEquals( 0 , count );
+			}
+			liveParticles += count;
+		}
+		assertEquals( MAX_PARTICLES , liveParticles );
+	}
+
+	public void testLastEffectGetsWhatIsLeftOfBudget()
+	{
+		assertEquals( 30 , governor.getParticleCount( 100 , MAX_PARTICLES - 30 ) );
+		// not enough left for the min. particle count
+		assertEquals( 0 , governor.getParticleCount( 100 , MAX_PARTICLES - ParticleGovernor.MIN_PARTICLES_PER_EFFECT + 1 ) );
+	}
+
+	public void testNeverExceedsRequestedCount()
+	{
+		assertEquals( 5 , governor.getParticleCount( 5 , 0 ) );
+		assertEquals( 5 , governor.getParticleCount( 5 , MAX_PARTICLES - 5 ) );
+		assertEquals( 0 , governor.getParticleCount( 5 , MAX_PARTICLES - 4 ) );
+	}
+
+	public void testReset()
+	{
+		update( OVERLOADED , 200 );
+		governor.reset();
+
+		assertEquals( 0 , governor.getDegradationLevel() );
+		assertEquals( 0f , governor.getLoad() );
+	}
+
+	public void testInvalidArguments()
+	{
+		try {
+			new ParticleGovernor( 0 , MAX_PARTICLES );
+			fail("Should have failed");
+		} catch(final IllegalArgumentException e) {
+			// ok
+		}
+		try {
+			new ParticleGovernor( FRAME_BUDGET , ParticleGovernor.MIN_PARTICLES_PER_EFFECT - 1 );
+			fail("Should have failed");
+		} catch(final IllegalArgumentException e) {
+			// ok
+		}
+	}
+}
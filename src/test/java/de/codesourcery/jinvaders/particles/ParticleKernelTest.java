@@ -0,0 +1,92 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+
+public class ParticleKernelTest extends TestCase {
+
+	private static final float DT = 1/60f;
+
+	private static ParticlePool createPool(int count)
+	{
+		final ParticlePool pool = new ParticlePool( 0 , count );
+		pool.allocateParticles( count );
+		final SplittableRandom rnd = new SplittableRandom( 42 );
+		for ( int i = 0 ; i < count ; i++ )
+		{
+			pool.positionX[i] = (float) rnd.nextDouble( 0 , 800 );
+			pool.positionY[i] = (float) rnd.nextDouble( 0 , 600 );
+			pool.velocityX[i] = (float) rnd.nextDouble( -500 , 500 );
+			pool.velocityY[i] = (float) rnd.nextDouble( -500 , 500 );
+			pool.accelerationX[i] = (float) rnd.nextDouble( -80 , 80 );
+			pool.accelerationY[i] = (float) rnd.nextDouble( -80 , 80 );
+			pool.lifetimeLeft[i] = (float) rnd.nextDouble( -0.1 , 1 );
+			pool.alive[i] = rnd.nextInt( 10 ) != 0;
+		}
+		// edge cases
+		pool.velocityX[0] = IParticleKernel.MAX_VELOCITY;
+		pool.velocityY[0] = 0;
+		pool.accelerationX[0] = 0;
+		pool.accelerationY[0] = 0;
+		pool.lifetimeLeft[1] = DT;
+		return pool;
+	}
+
+	public void testScalarKernel()
+	{
+		final ParticlePool pool = createPool( 2 );
+		pool.alive[0] = pool.alive[1] = true;
+		new ScalarParticleKernel().integrate( pool , 0 , 2 , DT );
+
+		assertEquals( IParticleKernel.MAX_VELOCITY , pool.velocityX[0] );
+		assertTrue( pool.alive[0] );
+		assertEquals( 0f , pool.lifetimeLeft[1] );
+		assertTrue( pool.alive[1] );
+	}
+
+	public void testKernelsProduceSameResults()
+	{
+		final IParticleKernel vector = ParticleKernels.createVectorKernel();
+		if ( vector == null ) {
+			System.out.println("Vector API kernel not available, skipping test");
+			return;
+		}
+		if ( System.getProperty( ParticleKernels.SYSTEM_PROPERTY ) == null ) {
+			assertSame( vector.getClass() , ParticleKernels.create().getClass() );
+		}
+
+		// odd count so that the scalar tail gets used as well
+		final int count = 1003;
+		final ParticlePool expected = createPool( count );
+		final ParticlePool actual = createPool( count );
+		final IParticleKernel scalar = new ScalarParticleKernel();
+		for ( int tick = 0 ; tick < 100 ; tick++ )
+		{
+			scalar.integrate( expected , 3 , count , DT );
+			vector.integrate( actual , 3 , count , DT );
+		}
+		assertTrue( Arrays.equals( expected.positionX , actual.positionX ) );
+		assertTrue( Arrays.equals( expected.positionY , actual.positionY ) );
+		assertTrue( Arrays.equals( expected.velocityX , actual.velocityX ) );
+		assertTrue( Arrays.equals( expected.velocityY , actual.velocityY ) );
+		assertTrue( Arrays.equals( expected.lifetimeLeft , actual.lifetimeLeft ) );
+		assertTrue( Arrays.equals( expected.alive , actual.alive ) );
+	}
+}
@@ -15,6 +15,7 @@
  */
 package de.codesourcery.jinvaders.particles;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,107 +33,142 @@ public class ParticlePoolTest extends TestCase {
 
 	public void testAllocFromEmptyPool()
 	{
-		pool = new ParticlePool(0);
+		pool = new ParticlePool( 0 , 100 );
+		assertEquals( 0 , pool.capacity() );
 
 		// allocate
 		final List<Subpool> allocated = pool.allocateParticles( 100 );
-		assertEquals(1,allocated.size());
-		Subpool sub = allocated.get(0);
-		assertNotNull(sub);
-		assertEquals(0,sub.startIndex);
-		assertEquals(100,sub.endIndex);
-		assertEquals( 100 , sub.size );
+		assertEquals( Arrays.asList( new Subpool( 0 , 100 ) ) , allocated );
+		assertInitialized( allocated );
 
-		assertInitialized( sub );
-
-		assertEquals( 0 , pool.availablePools.size() );
-		assertEquals( 1 , pool.usedPools.size() );
-		assertTrue( pool.usedPools.contains( sub ) );
+		assertEquals( 100 , pool.capacity() );
+		assertEquals( 0 , pool.getAvailableCount() );
+		assertEquals( 100 , pool.getUsedCount() );
 
 		// release
+		pool.releaseParticles( allocated );
 
-		pool.releaseParticles( Arrays.asList( sub ) );
-
-		assertEquals( 1 , pool.availablePools.size() );
-		assertEquals( 0 , pool.usedPools.size() );
-		assertTrue( pool.availablePools.contains( sub ) );
+		assertEquals( 100 , pool.getAvailableCount() );
+		assertEquals( 0 , pool.getUsedCount() );
 
 		try {
-			pool.releaseParticles( Arrays.asList( sub ) );
+			pool.releaseParticles( allocated );
 			fail("Double-free should've failed");
 		} catch(Exception e) {
 			/* ok */
 		}
 	}
 
-	public void testAllocFromPoolWithSameSize()
+	public void testAllocationSpanningSlabs()
 	{
-		pool = new ParticlePool(100);
-
-		// allocate
-		final List<Subpool> allocated = pool.allocateParticles( 100 );
-		assertEquals(1,allocated.size());
-		Subpool sub = allocated.get(0);
-		assertNotNull(sub);
-		assertEquals(0,sub.startIndex);
-		assertEquals(100,sub.endIndex);
-		assertEquals( 100 , sub.size );
-
-		assertInitialized( sub );
-
-		assertEquals( 0 , pool.availablePools.size() );
-		assertEquals( 1 , pool.usedPools.size() );
-		assertTrue( pool.usedPools.contains( sub ) );
+		pool = new ParticlePool( 100 , 32 );
+		assertEquals( 128 , pool.capacity() );
 
-		// release
-
-		pool.releaseParticles( Arrays.asList( sub ) );
+		final List<Subpool> allocated = pool.allocateParticles( 70 );
+		assertEquals( Arrays.asList( new Subpool( 0 , 32 ) , new Subpool( 32 , 64 ) , new Subpool( 64 , 70 ) ) , allocated );
+		assertInitialized( allocated );
+		assertEquals( 96 , pool.getUsedCount() );
 
-		assertEquals( 1 , pool.availablePools.size() );
-		assertEquals( 0 , pool.usedPools.size() );
-		assertTrue( pool.availablePools.contains( sub ) );
+		final List<Subpool> allocated2 = pool.allocateParticles( 1 );
+		assertEquals( Arrays.asList( new Subpool( 96 , 97 ) ) , allocated2 );
+		assertEquals( 0 , pool.getAvailableCount() );
 
-		try {
-			pool.releaseParticles( Arrays.asList( sub ) );
-			fail("Double-free should've failed");
-		} catch(Exception e) {
-			/* ok */
-		}
+		pool.releaseParticles( allocated );
+		pool.releaseParticles( allocated2 );
+		assertEquals( 128 , pool.getAvailableCount() );
 	}
 
-	public void testAllocFromPoolLargerSize()
+	public void testReleasedSlabsGetReused()
 	{
-		pool = new ParticlePool(200);
+		pool = new ParticlePool( 300 , 100 );
 
-		// allocate
-		final List<Subpool> allocated = pool.allocateParticles( 100 );
-		assertEquals(1,allocated.size());
+		final List<Subpool> allocated1 = pool.allocateParticles( 100 );
+		final List<Subpool> allocated2 = pool.allocateParticles( 100 );
+		assertEquals( Arrays.asList( new Subpool( 100 , 200 ) ) , allocated2 );
 
-		Subpool sub = allocated.get(0);
-		assertNotNull(sub);
-		assertEquals(0,sub.startIndex);
-		assertEquals(100,sub.endIndex);
-		assertEquals( 100 , sub.size );
+		pool.releaseParticles( allocated1 );
+		final List<Subpool> allocated3 = pool.allocateParticles( 100 );
+		assertEquals( allocated1 , allocated3 );
+		// subpools describing slabs are re-used
+		assertSame( allocated1.get(0) , allocated3.get(0) );
 
-		assertInitialized( sub );
+		// same for partially used slabs
+		pool.releaseParticles( allocated3 );
+		final Subpool partial = pool.allocateParticles( 50 ).get(0);
+		pool.releaseParticles( Arrays.asList( partial ) );
+		assertSame( partial , pool.allocateParticles( 40 ).get(0) );
+		assertEquals( new Subpool( 0 , 40 ) , partial );
+		assertEquals( 300 , pool.capacity() );
+	}
 
-		assertEquals( 1 , pool.availablePools.size() );
-		assertTrue( pool.availablePools.contains( new Subpool( 100 , 200 ) ) );
+	public void testGrowthIsAmortized()
+	{
+		pool = new ParticlePool( 100 , 10 );
+		pool.positionX[99] = 42;
+
+		final List<Subpool> allocated1 = pool.allocateParticles( 100 );
+		final List<Subpool> allocated2 = pool.allocateParticles( 10 );
+		assertEquals( Arrays.asList( new Subpool( 100 , 110 ) ) , allocated2 );
+		assertEquals( 150 , pool.capacity() );
+		assertEquals( 150 , pool.positionX.length );
+		assertEquals( 42f , pool.positionX[99] );
+
+		// the rest of the new particles is available
+		assertEquals( 40 , pool.getAvailableCount() );
+		final List<Subpool> allocated3 = pool.allocateParticles( 40 );
+		assertEquals( new Subpool( 110 , 120 ) , allocated3.get(0) );
+		assertEquals( 150 , pool.capacity() );
 
-		assertEquals( 1 , pool.usedPools.size() );
-		assertTrue( pool.usedPools.contains( sub ) );
+		pool.releaseParticles( allocated1 );
+		pool.releaseParticles( allocated2 );
+		pool.releaseParticles( allocated3 );
+		assertEquals( 150 , pool.getAvailableCount() );
 
-		// release
-		pool.releaseParticles( Arrays.asList( sub ) );
+		// most recently released slabs get handed out first
+		assertEquals( new Subpool( 110 , 120 ) , pool.allocateParticles( 10 ).get(0) );
+	}
 
-		assertEquals( 1 , pool.availablePools.size() );
-		assertEquals( 0 , pool.usedPools.size() );
-		assertTrue( pool.availablePools.contains( new Subpool( 0 , 200 ) ) );
+	public void testAllocationDoesNotAllocateSubpools()
+	{
+		pool = new ParticlePool( 200 , 100 );
+		final List<Subpool> allocated = new ArrayList<>();
+		pool.allocateParticles( 150 , allocated );
+		final List<Subpool> first = new ArrayList<>( allocated );
+		for ( int i = 0 ; i < 10 ; i++ )
+		{
+			pool.releaseParticles( allocated );
+			allocated.clear();
+			// varying sizes, the last slab is only partially used
+			pool.allocateParticles( 150 + i , allocated );
+			assertEquals( first.size() , allocated.size() );
+			for ( int j = 0 ; j < first.size() ; j++ ) {
+				assertSame( first.get(j) , allocated.get(j) );
+			}
+			assertEquals( 50 + i , allocated.get(1).size );
+		}
+	}
 
+	public void testReleaseForeignSubpoolFails()
+	{
+		pool = new ParticlePool( 100 , 10 );
+		pool.allocateParticles( 20 );
 		try {
-			pool.releaseParticles( Arrays.asList( sub ) );
-			fail("Double-free should've failed");
-		} catch(Exception e) {
+			pool.releaseParticles( Arrays.asList( new Subpool( 5 , 10 ) ) );
+			fail("Should've failed");
+		} catch(IllegalArgumentException e) {
+			/* ok */
+		}
+		try {
+			pool.releaseParticles( Arrays.asList( new Subpool( 1000 , 1010 ) ) );
+			fail("Should've failed");
+		} catch(IllegalArgumentException e) {
+			/* ok */
+		}
+		try {
+			// same range as an allocated slab, but not handed out by the pool
+			pool.releaseParticles( Arrays.asList( new Subpool( 0 , 10 ) ) );
+			fail("Should've failed");
+		} catch(IllegalArgumentException e) {
 			/* ok */
 		}
 	}
@@ -144,44 +180,8 @@ public class ParticlePoolTest extends TestCase {
 
 	private void assertInitialized(Subpool sub)
 	{
-		for ( int i = sub.startIndex ; i < sub.endIndex ; i++ ) {
-			assertNotNull( pool.particlePool[i] );
-		}
-	}
-
-	public void testDefragmentation()
-	{
-		pool = new ParticlePool(60);
-
-		// allocate
-		final List<Subpool> allocated1 = pool.allocateParticles( 10 );
-		final List<Subpool> allocated2 = pool.allocateParticles( 20 );
-		final List<Subpool> allocated3 = pool.allocateParticles( 30 );
-
-		assertEquals( 1 , allocated1.size());
-		assertEquals( 1 , allocated2.size());
-		assertEquals( 1 , allocated3.size());
-
-		assertInitialized( allocated1 );
-		assertInitialized( allocated2 );
-		assertInitialized( allocated3 );
-
-		assertEquals( 0 , pool.availablePools.size() );
-		assertEquals( 3 , pool.usedPools.size() );
-
-		allocated1.forEach( a -> assertTrue( pool.usedPools.contains( a ) ) );
-		allocated2.forEach( a -> assertTrue( pool.usedPools.contains( a ) ) );
-		allocated3.forEach( a -> assertTrue( pool.usedPools.contains( a ) ) );
-
-		// release
-		pool.releaseParticles( allocated2 );
-		pool.releaseParticles( allocated1 );
-		pool.releaseParticles( allocated3 );
-
-		pool.slowMerge();
-
-		assertEquals( pool.toString() , 1 , pool.availablePools.size() );
-		assertEquals( 0 , pool.usedPools.size() );
-		assertTrue( pool.availablePools.contains( new Subpool( 0 , 60 ) ) );
+		assertTrue( sub.endIndex <= pool.capacity() );
+		assertTrue( pool.positionX.length >= pool.capacity() );
+		assertTrue( pool.alive.length >= pool.capacity() );
 	}
 }
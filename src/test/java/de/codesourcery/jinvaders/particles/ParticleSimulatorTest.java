@@ -0,0 +1,124 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.particles.ParticlePool.Subpool;
+
+public class ParticleSimulatorTest extends TestCase {
+
+	private static final float DT = 1/60f;
+
+	private static final IParticleKernel KERNEL = new ScalarParticleKernel();
+
+	private ForkJoinPool executor;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		executor = new ForkJoinPool( 4 );
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		executor.shutdownNow();
+		super.tearDown();
+	}
+
+	private static ParticlePool createPool()
+	{
+		final ParticlePool pool = new ParticlePool( 0 , 100 );
+		final SplittableRandom rnd = new SplittableRandom( 42 );
+		final List<Subpool> allocated = pool.allocateParticles( 5000 );
+		for ( final Subpool sub : allocated )
+		{
+			for ( int i = sub.startIndex ; i < sub.endIndex ; i++ )
+			{
+				pool.velocityX[i] = (float) rnd.nextDouble( -500 , 500 );
+				pool.velocityY[i] = (float) rnd.nextDouble( -500 , 500 );
+				pool.accelerationX[i] = (float) rnd.nextDouble( -80 , 80 );
+				pool.accelerationY[i] = (float) rnd.nextDouble( -80 , 80 );
+				pool.lifetimeLeft[i] = (float) rnd.nextDouble( 0 , 1 );
+				pool.alive[i] = true;
+			}
+		}
+		// leave a gap
+		pool.releaseParticles( Arrays.asList( allocated.get( 10 ) ) );
+		return pool;
+	}
+
+	public void testParallelAndSerialResultsMatch()
+	{
+		final ParticlePool serialPool = createPool();
+		final ParticlePool parallelPool = createPool();
+		final ParticleSimulator serial = new ParticleSimulator( serialPool , KERNEL , Integer.MAX_VALUE , executor );
+		final ParticleSimulator parallel = new ParticleSimulator( parallelPool , KERNEL , 0 , executor );
+
+		for ( int tick = 0 ; tick < 100 ; tick++ )
+		{
+			serial.tick( DT );
+			parallel.tick( DT );
+		}
+		assertEquals( 4900 , parallel.getParticleCount() );
+		assertTrue( parallel.getChunkCount() > 1 );
+
+		assertTrue( Arrays.equals( serialPool.positionX , parallelPool.positionX ) );
+		assertTrue( Arrays.equals( serialPool.positionY , parallelPool.positionY ) );
+		assertTrue( Arrays.equals( serialPool.velocityX , parallelPool.velocityX ) );
+		assertTrue( Arrays.equals( serialPool.velocityY , parallelPool.velocityY ) );
+		assertTrue( Arrays.equals( serialPool.alive , parallelPool.alive ) );
+	}
+
+	public void testWorkListSkipsFreeSlabsAndSplitsLargeRuns()
+	{
+		final ParticlePool pool = createPool();
+		final ParticleSimulator simulator = new ParticleSimulator( pool , KERNEL , Integer.MAX_VALUE , executor );
+		pool.positionX[1000] = 42;
+
+		simulator.tick( DT );
+
+		// slab 10 is free and must not be touched
+		assertEquals( 42f , pool.positionX[1000] );
+		assertEquals( 4900 , simulator.getParticleCount() );
+		// [0,1000) fits into one chunk, [1100,5000) needs 4
+		assertEquals( 5 , simulator.getChunkCount() );
+	}
+
+	public void testParticlesDieAndVelocityIsLimited()
+	{
+		final ParticlePool pool = new ParticlePool( 0 , 1 );
+		pool.allocateParticles( 2 );
+		pool.velocityX[0] = 1000;
+		pool.lifetimeLeft[0] = 1;
+		pool.alive[0] = true;
+		pool.lifetimeLeft[1] = DT / 2;
+		pool.alive[1] = true;
+
+		new ParticleSimulator( pool , KERNEL , Integer.MAX_VALUE , executor ).tick( DT );
+
+		assertEquals( 1000 * DT , pool.positionX[0] , 0.0001f );
+		assertEquals( 410f , pool.velocityX[0] , 0.0001f );
+		assertTrue( pool.alive[0] );
+		assertFalse( pool.alive[1] );
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.profiling;
+
+import junit.framework.TestCase;
+
+public class RollingHistogramTest extends TestCase {
+
+	public void testEmptyHistogram()
+	{
+		final RollingHistogram h = new RollingHistogram(10);
+		assertEquals( 0 , h.getCount() );
+		assertEquals( 0 , h.getValueAtPercentile( 50 ) );
+		assertEquals( 0 , h.getMax() );
+		assertEquals( 0d , h.getMean() );
+	}
+
+	public void testBucketsAreContiguous()
+	{
+		for ( long value = 0 ; value < 100_000 ; value++ )
+		{
+			final int index = RollingHistogram.bucketIndex( value );
+			assertTrue( value <= RollingHistogram.highestValueInBucket( index ) );
+			if ( index > 0 ) {
+				assertTrue( value > RollingHistogram.highestValueInBucket( index - 1 ) );
+			}
+		}
+		final int last = RollingHistogram.bucketIndex( Long.MAX_VALUE );
+		assertEquals( Long.MAX_VALUE , RollingHistogram.highestValueInBucket( last ) );
+	}
+
+	public void testPercentiles()
+	{
+		final RollingHistogram h = new RollingHistogram(1000);
+		for ( int i = 1 ; i <= 1000 ; i++ ) {
+			h.record( i * 1000L );
+		}
+		assertEquals( 1000 , h.getCount() );
+		assertEquals( 1_000_000 , h.getMax() );
+		assertEquals( 500_500d , h.getMean() , 0.001 );
+		assertWithinPercent( 500_000 , h.getValueAtPercentile( 50 ) , 3.2 );
+		assertWithinPercent( 990_000 , h.getValueAtPercentile( 99 ) , 3.2 );
+		assertEquals( 1_000_000 , h.getValueAtPercentile( 100 ) );
+	}
+
+	public void testOldValuesGetEvicted()
+	{
+		final RollingHistogram h = new RollingHistogram(10);
+		for ( int i = 0 ; i < 10 ; i++ ) {
+			h.record( 1_000_000 );
+		}
+		for ( int i = 0 ; i < 10 ; i++ ) {
+			h.record( 10 );
+		}
+		assertEquals( 10 , h.getCount() );
+		assertEquals( 10 , h.getMax() );
+		assertEquals( 10 , h.getValueAtPercentile( 99 ) );
+		assertEquals( 10d , h.getMean() );
+	}
+
+	private static void assertWithinPercent(long expected,long actual,double percent)
+	{
+		final double delta = Math.abs( expected - actual ) * 100d / expected;
+		assertTrue( "Expected "+expected+" but got "+actual , delta <= percent );
+	}
+}
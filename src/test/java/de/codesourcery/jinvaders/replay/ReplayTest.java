@@ -0,0 +1,160 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import de.codesourcery.jinvaders.Game;
+import de.codesourcery.jinvaders.GameState;
+import de.codesourcery.jinvaders.entity.Entity;
+import de.codesourcery.jinvaders.graphics.NullRenderer;
+import de.codesourcery.jinvaders.graphics.SpriteRepository;
+import de.codesourcery.jinvaders.headless.Autopilot;
+import de.codesourcery.jinvaders.headless.HeadlessSimulation;
+import de.codesourcery.jinvaders.particles.ParticleGovernor;
+import de.codesourcery.jinvaders.sound.NullSoundSystem;
+
+public class ReplayTest extends TestCase {
+
+	private static final int MAX_TICKS = 100_000;
+
+	private final SpriteRepository sprites = new SpriteRepository();
+
+	private Game newGame(long seed) {
+		return new Game( new NullRenderer() , new NullSoundSystem() , sprites , seed );
+	}
+
+	public void testReplayIsBitExact() throws Exception
+	{
+		final Game game = newGame( 42 );
+		final ReplayRecorder recorder = new ReplayRecorder( new Autopilot() );
+		game.setPlayerInput( recorder );
+		game.startGame();
+
+		for ( int i = 0 ; i < MAX_TICKS && game.getGameState() == GameState.PLAYING ; i++ ) {
+			game.tick( HeadlessSimulation.SECONDS_PER_TICK );
+		}
+		assertEquals( "Game did not end within "+MAX_TICKS+" ticks", GameState.ENTER_HIGHSCORE , game.getGameState() );
+		final String expected = fingerprint( game );
+
+		// serialize
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		recorder.getReplay().writeTo( out );
+		assertTrue( "Replay too large: "+out.size()+" bytes", out.size() < 4096 );
+
+		final Replay replay = Replay.readFrom( new ByteArrayInputStream( out.toByteArray() ) );
+		assertEquals( recorder.getReplay().getTickCount() , replay.getTickCount() );
+
+		// play back on a game with a different seed
+		final Game replayed = newGame( 4711 );
+		new ReplayPlayer( replay ).play( replayed , HeadlessSimulation.SECONDS_PER_TICK );
+
+		assertEquals( GameState.ENTER_HIGHSCORE , replayed.getGameState() );
+		assertEquals( expected , fingerprint( replayed ) );
+	}
+
+	public void testSameSeedAndInputYieldSameGame()
+	{
+		final Game game1 = newGame( 1 );
+		final Game game2 = newGame( 2 );
+		game1.setPlayerInput( new Autopilot() );
+		game2.setPlayerInput( new Autopilot() );
+		game1.startGame( 123 );
+		game2.startGame( 123 );
+		for ( int i = 0 ; i < 500 ; i++ )
+		{
+			game1.tick( HeadlessSimulation.SECONDS_PER_TICK );
+			game2.tick( HeadlessSimulation.SECONDS_PER_TICK );
+		}
+		assertEquals( fingerprint( game1 ) , fingerprint( game2 ) );
+	}
+
+	public void testParticleQualityDoesNotAffectGameplay()
+	{
+		final Game game1 = newGame( 1 );
+		final Game game2 = newGame( 1 );
+		game1.setPlayerInput( new Autopilot() );
+		game2.setPlayerInput( new Autopilot() );
+		game1.startGame( 123 );
+		game2.startGame( 123 );
+		for ( int i = 0 ; i < 3000 && game1.getGameState() == GameState.PLAYING ; i++ )
+		{
+			// pretend the second game runs on a machine that is way too slow
+			game2.getParticleGovernor().update( 1_000_000_000L );
+
+			game1.tick( HeadlessSimulation.SECONDS_PER_TICK );
+			game2.tick( HeadlessSimulation.SECONDS_PER_TICK );
+			assertEquals( "Games diverged at tick "+i , fingerprint( game1 ) , fingerprint( game2 ) );
+		}
+		assertEquals( ParticleGovernor.MAX_LEVEL , game2.getParticleGovernor().getDegradationLevel() );
+		assertEquals( 0 , game1.getParticleGovernor().getDegradationLevel() );
+	}
+
+	public void testRenderingDoesNotAffectSessionSeeds()
+	{
+		final Game game1 = newGame( 42 );
+		final Game game2 = newGame( 42 );
+		for ( int i = 0 ; i < 3 ; i++ )
+		{
+			// game2 initializes its UI lazily, somewhere between sessions
+			if ( i == 1 ) {
+				game2.initializeRenderer( null );
+			}
+			game1.startGame();
+			game2.startGame();
+			assertEquals( "Session seeds differ in session "+i , game1.getSessionSeed() , game2.getSessionSeed() );
+			game1.setGameState( GameState.GAME_OVER );
+			game2.setGameState( GameState.GAME_OVER );
+		}
+	}
+
+	public void testRejectsInvalidTickCount() throws Exception
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new Replay( 42 , new byte[0] , 0 ).writeTo( out );
+		final byte[] header = Arrays.copyOf( out.toByteArray() , out.size() - 1 ); // strip tick count
+
+		// negative (-1) and way too large (2^28) tick counts
+		for ( final byte[] tickCount : new byte[][] { { -1, -1, -1, -1, 0x0f } , { -128, -128, -128, -128, 0x01 } } )
+		{
+			final byte[] data = Arrays.copyOf( header , header.length + tickCount.length );
+			System.arraycopy( tickCount , 0 , data , header.length , tickCount.length );
+			try {
+				Replay.readFrom( new ByteArrayInputStream( data ) );
+				fail( "Should have failed" );
+			} catch(IOException e) {
+				// ok
+			}
+		}
+	}
+
+	private static String fingerprint(Game game)
+	{
+		final StringBuilder result = new StringBuilder();
+		result.append( "score=" ).append( game.player.score )
+		.append( ",lifes=" ).append( game.player.lifes )
+		.append( ",difficulty=" ).append( game.difficulty )
+		.append( ",ticksTillDifficultyIncrease=" ).append( game.ticksTillDifficultyIncrease );
+		for ( final Entity e : game.entities.asList() ) {
+			result.append( "\n" ).append( e.getClass().getSimpleName() ).append( e.getX() ).append( ',' ).append( e.getY() );
+		}
+		return result.toString();
+	}
+}
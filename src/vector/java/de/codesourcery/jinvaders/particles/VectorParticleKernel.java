@@ -0,0 +1,100 @@
+/**
+ * Copyright 2015 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jinvaders.particles;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel using the (incubating) Java Vector API.
+ *
+ * Performs the same operations in the same order as {@link ScalarParticleKernel} (without fused multiply-add)
+ * so that both produce exactly the same results. Particles that do not fill a whole vector are handed to
+ * the scalar kernel.
+ *
+ * Only compiled by the <code>vector</code> Maven profile, instantiated through {@link ParticleKernels#create()}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class VectorParticleKernel implements IParticleKernel
+{
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private final ScalarParticleKernel tail = new ScalarParticleKernel();
+
+	@Override
+	public void integrate(ParticlePool pool, int start, int end, float elapsedTimeInSecs)
+	{
+		final float[] px = pool.positionX;
+		final float[] py = pool.positionY;
+		final float[] vx = pool.velocityX;
+		final float[] vy = pool.velocityY;
+		final float[] ax = pool.accelerationX;
+		final float[] ay = pool.accelerationY;
+		final float[] lifetimeLeft = pool.lifetimeLeft;
+		final boolean[] alive = pool.alive;
+
+		final float dt = elapsedTimeInSecs;
+		final float halfDt2 = dt*dt / 2;
+
+		final FloatVector vDt = FloatVector.broadcast( SPECIES , dt );
+		final FloatVector vHalfDt2 = FloatVector.broadcast( SPECIES , halfDt2 );
+		final FloatVector vMax = FloatVector.broadcast( SPECIES , MAX_VELOCITY );
+		final FloatVector vMax2 = FloatVector.broadcast( SPECIES , MAX_VELOCITY*MAX_VELOCITY );
+		final FloatVector vOne = FloatVector.broadcast( SPECIES , 1f );
+
+		final int step = SPECIES.length();
+		final int upperBound = start + SPECIES.loopBound( end - start );
+		int i = start;
+		for ( ; i < upperBound ; i += step )
+		{
+			final FloatVector accX = FloatVector.fromArray( SPECIES , ax , i );
+			final FloatVector accY = FloatVector.fromArray( SPECIES , ay , i );
+			final FloatVector velX = FloatVector.fromArray( SPECIES , vx , i );
+			final FloatVector velY = FloatVector.fromArray( SPECIES , vy , i );
+
+			FloatVector.fromArray( SPECIES , px , i ).add( accX.mul( vHalfDt2 ).add( velX.mul( vDt ) ) ).intoArray( px , i );
+			FloatVector.fromArray( SPECIES , py , i ).add( accY.mul( vHalfDt2 ).add( velY.mul( vDt ) ) ).intoArray( py , i );
+
+			final FloatVector newVelX = velX.add( accX.mul( vDt ) );
+			final FloatVector newVelY = velY.add( accY.mul( vDt ) );
+			final FloatVector len2 = newVelX.mul( newVelX ).add( newVelY.mul( newVelY ) );
+			final VectorMask<Float> tooFast = len2.compare( VectorOperators.GT , vMax2 );
+			final FloatVector scale = vOne.blend( vMax.div( len2.lanewise( VectorOperators.SQRT ) ) , tooFast );
+			newVelX.mul( scale ).intoArray( vx , i );
+			newVelY.mul( scale ).intoArray( vy , i );
+
+			FloatVector.fromArray( SPECIES , lifetimeLeft , i ).sub( vDt ).intoArray( lifetimeLeft , i );
+		}
+
+		// loading/storing masks from/to boolean[] is not intrinsified by all JDK versions (and allocates then),
+		// so update the alive flags with a plain loop
+		for ( int j = start ; j < i ; j++ ) {
+			alive[j] &= lifetimeLeft[j] >= 0;
+		}
+
+		if ( i < end ) {
+			tail.integrate( pool , i , end , elapsedTimeInSecs );
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "vector ("+SPECIES+")";
+	}
+}